@@ -31,12 +31,18 @@ public class CoreIndicators extends CollectorBase {
     // Note that some of these methods are just wrappers around methods contained in other classes with the purpose of
     // storing here a coherent set of core indicators getters
 	
+	/**
+	 * Activating the core indicators also activates the collectors they are computed from, while deactivating them
+	 * leaves those collectors as they are, since they might still be needed for the general output
+	 */
 	@Override
 	public void setActive(boolean active) {
 		super.setActive(active);
-		Model.creditSupply.setActive(active);
-		Model.housingMarketStats.setActive(active);
-		Model.householdStats.setActive(active);
+		if (active) {
+			Model.creditSupply.setActive(true);
+			Model.housingMarketStats.setActive(true);
+			Model.householdStats.setActive(true);
+		}
     }
 
     // Owner-occupier mortgage LTI ratio (mean above the median)
@@ -23,23 +23,18 @@ public class CreditSupply extends CollectorBase {
 	}
 
 	/***
-	 * collect information for this timestep
+	 * collect information for this timestep (credit totals only if active, as they are only used for output)
 	 */
 	public void step() {
-        double oldTotalCredit = totalOOCredit + totalBTLCredit;
-        totalOOCredit = 0.0;
-        totalBTLCredit = 0.0;
-        for(MortgageAgreement m : Model.bank.mortgages) {
-        	if(m.isBuyToLet) {
-            	totalBTLCredit += m.principal;
-        	} else {
-        		totalOOCredit += m.principal;
-        	}
-        }
-        if (oldTotalCredit > 0.0) {
-            netCreditGrowth = (totalOOCredit + totalBTLCredit - oldTotalCredit)/oldTotalCredit;
-        } else {
-            netCreditGrowth = 0;
+        if (isActive()) {
+            double oldTotalCredit = totalOOCredit + totalBTLCredit;
+            totalOOCredit = Model.bank.mortgages.getTotalPrincipal(false);
+            totalBTLCredit = Model.bank.mortgages.getTotalPrincipal(true);
+            if (oldTotalCredit > 0.0) {
+                netCreditGrowth = (totalOOCredit + totalBTLCredit - oldTotalCredit)/oldTotalCredit;
+            } else {
+                netCreditGrowth = 0;
+            }
         }
         nApprovedMortgages = mortgageCounter;
         nFTBMortgages = ftbCounter;
@@ -56,21 +51,21 @@ public class CreditSupply extends CollectorBase {
 	 */
 	public void recordLoan(Household h, MortgageAgreement approval, House house) {
 		double housePrice;
-		if(config.isMortgageDiagnosticsActive()) {
-			housePrice = approval.principal + approval.downPayment;
+		if(isActive() && config.isMortgageDiagnosticsActive()) {
+			housePrice = approval.getPrincipal() + approval.downPayment;
 			affordability = config.derivedParams.getAffordabilityDecay()*affordability +
                     (1.0-config.derivedParams.getAffordabilityDecay())*approval.monthlyPayment/
                             (h.monthlyEmploymentIncome);
-			// TODO: This condition is redundant, as the method is only called when approval.principal > 0
-			if(approval.principal > 0.0) {
+			// TODO: This condition is redundant, as the method is only called when approval.getPrincipal() > 0
+			if(approval.getPrincipal() > 0.0) {
 				if(approval.isBuyToLet) {
-					btl_ltv.addValue(100.0*approval.principal/housePrice);
+					btl_ltv.addValue(100.0*approval.getPrincipal()/housePrice);
 					double icr = house.region.regionalRentalMarketStats.getExpAvFlowYield()*approval.purchasePrice/
-                            (approval.principal*config.getCentralBankBTLStressedInterest());
+                            (approval.getPrincipal()*config.getCentralBankBTLStressedInterest());
 					btl_icr.addValue(icr);
 				} else {
-					oo_ltv.addValue(100.0*approval.principal/housePrice);
-					oo_lti.addValue(approval.principal/h.annualEmploymentIncome());
+					oo_ltv.addValue(100.0*approval.getPrincipal()/housePrice);
+					oo_lti.addValue(approval.getPrincipal()/h.annualEmploymentIncome());
 				}
 				downpayments.addValue(approval.downPayment);
 			}
@@ -77,9 +77,11 @@ public class HouseholdStats extends CollectorBase {
 
     /**
      * Collects current values, apart from updating those to be computed, for all relevant variables from the regional
-     * household statistics objects
+     * household statistics objects. As none of these statistics are used by the model's behaviour, they are only
+     * collected if this collector is active
      */
     public void collectRegionalRecords() {
+        if (!isActive()) return;
         // Re-initiate to zero variables to sum over regions
         nBTL = 0;
         nActiveBTL = 0;
@@ -112,6 +114,18 @@ public class HouseholdStats extends CollectorBase {
 
     //----- Getter/setter methods -----//
 
+    /**
+     * Activate or deactivate both this and all regional household statistics collectors. Note that regional collectors
+     * activate themselves on construction, so changes are only passed on once the geography is set
+     */
+    @Override
+    public void setActive(boolean active) {
+        super.setActive(active);
+        if (geography != null) {
+            for (Region region : geography) region.regionalHouseholdStats.setActive(active);
+        }
+    }
+
     // Getters for numbers of households variables
     int getnBTL() { return nBTL; }
     int getnActiveBTL() { return nActiveBTL; }
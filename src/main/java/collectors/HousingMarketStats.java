@@ -32,8 +32,9 @@ public class HousingMarketStats extends CollectorBase {
     int                             nSellers;
     double                          sumBidPrices;
     double                          sumOfferPrices;
-    double []                       offerPrices;
-    double []                       bidPrices;
+    double []                       offerPrices; // Only collected if recordPriceDistributions is set
+    double []                       bidPrices; // Only collected if recordPriceDistributions is set
+    private boolean                 recordPriceDistributions; // True if a consumer has requested the price arrays
 
     // Variables computed after market clearing to keep the previous values during the clearing
     int                             nSales; // Number of sales
@@ -110,6 +111,23 @@ public class HousingMarketStats extends CollectorBase {
         longTermHousePriceAppreciation = housePriceAppreciation(config.HPA_YEARS_TO_CHECK);
     }
 
+    /**
+     * Start the price statistics from given levels, as if prices had been steady at these levels for a long time, for
+     * simulations that begin from a stationary population
+     *
+     * @param hpi House price index, relative to the reference prices
+     * @param pricePerQuality Average price for each quality band
+     * @param daysOnMarket Average number of days on the market
+     */
+    public void setInitialPrices(double hpi, double [] pricePerQuality, double daysOnMarket) {
+        System.arraycopy(pricePerQuality, 0, expAvSalePricePerQuality, 0, config.N_QUALITY);
+        expAvDaysOnMarket = daysOnMarket;
+        housePriceIndex = hpi;
+        for (int i = 0; i < config.derivedParams.HPI_RECORD_LENGTH; ++i) HPIRecord.addValue(hpi);
+        annualHousePriceAppreciation = housePriceAppreciation(1);
+        longTermHousePriceAppreciation = housePriceAppreciation(config.HPA_YEARS_TO_CHECK);
+    }
+
     /**
      * Collects current values, apart from updating those to be computed, for all relevant variables from the regional
      * housing market statistics objects
@@ -133,9 +151,8 @@ public class HousingMarketStats extends CollectorBase {
         // Run through regions summing
         runThroughRegionsSumming();
 
-        // Once we have total nSellers and nBuyers, we can allocate and collect offerPrices and bidPrices arrays
-        offerPrices = new double[nSellers];
-        bidPrices = new double[nBuyers];
+        // Once we have total nSellers and nBuyers, we can allocate and collect offerPrices and bidPrices arrays, if
+        // requested
         // TODO: Check efficiency of methods 1 and 2 and decide for one or the other.
         // METHOD 1
         // Run through regions collecting regional offer and bid prices arrays into corresponding national arrays
@@ -150,8 +167,12 @@ public class HousingMarketStats extends CollectorBase {
 //            j += region.regionalHousingMarketStats.nBuyers;
 //        }
         // METHOD 2
-        collectOfferPrices();
-        collectBidPrices();
+        if (recordPriceDistributions) {
+            offerPrices = new double[nSellers];
+            bidPrices = new double[nBuyers];
+            collectOfferPrices();
+            collectBidPrices();
+        }
 
         // Compute all derived variables...
         // ... exponential averages of days in the market and prices per quality band (only if there have been sales)
@@ -171,9 +192,11 @@ public class HousingMarketStats extends CollectorBase {
         }
         // ... HPIRecord with the new house price index value
         HPIRecord.addValue(housePriceIndex);
-        // ... current house price appreciation values (both annual and long term value)
-        annualHousePriceAppreciation = housePriceAppreciation(1);
-        longTermHousePriceAppreciation = housePriceAppreciation(config.HPA_YEARS_TO_CHECK);
+        // ... current house price appreciation values (both annual and long term value), used only for output
+        if (isActive()) {
+            annualHousePriceAppreciation = housePriceAppreciation(1);
+            longTermHousePriceAppreciation = housePriceAppreciation(config.HPA_YEARS_TO_CHECK);
+        }
         // ... relaxation of the price distribution towards the reference price distribution (described in appendix A3)
         for(int q = 0; q < config.N_QUALITY; q++) {
             expAvSalePricePerQuality[q] = config.MARKET_AVERAGE_PRICE_DECAY*expAvSalePricePerQuality[q]
@@ -207,6 +230,25 @@ public class HousingMarketStats extends CollectorBase {
         }
     }
 
+    /**
+     * Passes on the activation or deactivation of this collector to the regional housing market statistics objects
+     * Note: To be overridden at RentalMarketStats
+     */
+    void setRegionalActive(boolean active) {
+        for (Region region: geography) region.regionalHousingMarketStats.setActive(active);
+    }
+
+    /**
+     * Passes on the request for the full arrays of offer and bid prices to the regional housing market statistics
+     * objects
+     * Note: To be overridden at RentalMarketStats
+     */
+    void setRegionalRecordPriceDistributions(boolean recordPriceDistributions) {
+        for (Region region: geography) {
+            region.regionalHousingMarketStats.setRecordPriceDistributions(recordPriceDistributions);
+        }
+    }
+
     /**
      * Collects all offer prices from the regional housing market statistics objects
      * Note: To be overridden at RentalMarketStats
@@ -274,6 +316,17 @@ public class HousingMarketStats extends CollectorBase {
 
     //----- Getter/setter methods -----//
 
+    /**
+     * Activate or deactivate both this and all regional market statistics collectors, the latter only computing their
+     * output-only statistics while active. Note that regional collectors activate themselves on construction, so
+     * changes are only passed on once the geography is set
+     */
+    @Override
+    public void setActive(boolean active) {
+        super.setActive(active);
+        if (geography != null) setRegionalActive(active);
+    }
+
     // Getters for variables computed at initialisation
     public double [] getReferencePricePerQuality() { return referencePricePerQuality; }
 
@@ -286,6 +339,19 @@ public class HousingMarketStats extends CollectorBase {
     public double [] getOfferPrices() { return offerPrices; }
     public double [] getBidPrices() { return bidPrices; }
 
+    /**
+     * Request (or stop requesting) the collection of the full arrays of offer and bid prices, both nationally and at
+     * each region. If not requested, these arrays are left empty and only the numbers and sums of prices are recorded
+     */
+    public void setRecordPriceDistributions(boolean recordPriceDistributions) {
+        this.recordPriceDistributions = recordPriceDistributions;
+        setRegionalRecordPriceDistributions(recordPriceDistributions);
+        if (!recordPriceDistributions) {
+            offerPrices = new double[0];
+            bidPrices = new double[0];
+        }
+    }
+
     // Getters for variables computed after market clearing to keep the previous values during the clearing
     int getnSales() { return nSales; }
     public int getnFTBSales() { return nFTBSales; }
@@ -0,0 +1,255 @@
+package collectors;
+
+import housing.*;
+import utilities.PriorityQueue2D;
+
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**************************************************************************************************
+ * Class to estimate, at regular intervals, the memory retained by the main entities of the model
+ * (households, houses, mortgages and market offers), broken down by class and by region, and to
+ * write these estimates to a MemoryAccounting-run<n>.csv file. Sizes are shallow object sizes
+ * computed from the declared fields of each class, following the HotSpot layout (object headers,
+ * compressed references for heaps below 32GB and 8-byte alignment), and do not include padding
+ * between fields nor objects shared by all agents, such as the config or the random generator.
+ *
+ * If a memory budget is set, the footprint of TARGET_POPULATION households is projected, first at
+ * start-up from the sizes of the objects every household needs and then at each report from the
+ * actual bytes per household, and the simulation is stopped if it exceeds the given fraction of
+ * the maximum heap size.
+ *
+ *************************************************************************************************/
+public class MemoryAccounting extends CollectorBase {
+    private static final long serialVersionUID = -3468025170394857625L;
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final boolean            COMPRESSED_OOPS = Runtime.getRuntime().maxMemory() < 32L*1024*1024*1024;
+    private static final int                OBJECT_HEADER = COMPRESSED_OOPS ? 12 : 16; // Bytes of an object header
+    private static final int                ARRAY_HEADER = COMPRESSED_OOPS ? 16 : 24; // Bytes of an array header, including its length
+    private static final int                REFERENCE = COMPRESSED_OOPS ? 4 : 8; // Bytes of a reference
+
+    private Config                          config = Model.config; // Passes the Model's configuration parameters object to a private field
+    private String                          outputFolderCopy;
+    private PrintWriter                     outfile;
+    private Map<Class<?>, Long>             shallowSizes = new HashMap<>(); // Cache of shallow sizes per class
+    private Class<?>                        treeMapEntryClass = loadClass("java.util.TreeMap$Entry");
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    public MemoryAccounting(String outputFolder) {
+        outputFolderCopy = outputFolder;
+        // Fail fast, before any agent is created, if even the objects every household needs would not fit in the heap
+        if (config.getMemoryBudgetFraction() > 0.0) {
+            double bytesPerHousehold = shallowSize(Household.class) + shallowSize(HouseholdBehaviour.class)
+                    + shallowSize(TreeMap.class) + REFERENCE
+                    + config.getConstructionHousesPerHousehold()*shallowSize(House.class);
+            checkBudget(bytesPerHousehold, "start-up lower bound");
+        }
+    }
+
+    //----------------------//
+    //----- Subclasses -----//
+    //----------------------//
+
+    /**
+     * Number of objects and bytes of a given class retained by a given type of entity
+     */
+    private static class Tally {
+        long objects;
+        long bytes;
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    public void openNewFile() {
+        try {
+            outfile = new PrintWriter(outputFolderCopy + "MemoryAccounting-run" + Model.nSimulation + ".csv",
+                    "UTF-8");
+            outfile.println("Model time, Region, Entity, Class, Objects, Bytes, Entities, BytesPerEntity");
+        } catch (FileNotFoundException | UnsupportedEncodingException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Write a report every MEMORY_ACCOUNTING_PERIOD months and, if a memory budget is set, check the footprint
+     * projected for TARGET_POPULATION households against it
+     */
+    public void step() {
+        if (!active || Model.t % config.getMemoryAccountingPeriod() != 0) return;
+        Map<Region, Integer> regionIndex = new HashMap<>();
+        ArrayList<Map<String, Tally>> tallies = new ArrayList<>();
+        ArrayList<long []> nEntities = new ArrayList<>(); // Households, houses, mortgages and offers per region
+        for (Region region : Model.geography) {
+            regionIndex.put(region, tallies.size());
+            tallies.add(new LinkedHashMap<>());
+            nEntities.add(new long[4]);
+        }
+        // Households, along with their houses payments maps and the mortgages they hold
+        int nRegion = 0;
+        long totalHouseholds = 0;
+        for (Region region : Model.geography) {
+            Map<String, Tally> tally = tallies.get(nRegion);
+            long [] n = nEntities.get(nRegion);
+            n[0] = region.households.size();
+            totalHouseholds += n[0];
+            add(tally, "Household", Household.class, n[0]);
+            add(tally, "Household", HouseholdBehaviour.class, n[0]);
+            add(tally, "Household", TreeMap.class, n[0]);
+            addArray(tally, "Household", "Object[] (Region.households)", 1, region.households.size());
+            long nRegistered = 0;
+            for (Household h : region.households) {
+                add(tally, "Household", treeMapEntryClass, h.getHousePayments().size());
+                for (PaymentAgreement payment : h.getHousePayments().values()) {
+                    if (payment instanceof MortgageAgreement) {
+                        n[2]++;
+                        add(tally, "Mortgage", MortgageAgreement.class, 1);
+                        if (((MortgageAgreement)payment).isRegistered()) nRegistered++;
+                    } else {
+                        add(tally, "Household", payment.getClass(), 1);
+                    }
+                }
+            }
+            // Slots at the bank's mortgage ledger (Bank.mortgages), until paid off
+            addArray(tally, "Mortgage", "double[] (MortgageLedger)", 0, 3*nRegistered);
+            addArray(tally, "Mortgage", "int[] (MortgageLedger)", 0, 3*nRegistered);
+            addArray(tally, "Mortgage", "boolean[] (MortgageLedger)", 0, 2*nRegistered);
+            addArray(tally, "Mortgage", "Object[] (MortgageLedger)", 0, 2*nRegistered);
+            // Offers on both markets, along with their nodes in the priority queues
+            for (HousingMarket market : new HousingMarket [] {region.houseSaleMarket, region.houseRentalMarket}) {
+                PriorityQueue2D<HousingMarketRecord> offersPQ = market.getOffersPQ();
+                n[3] += offersPQ.size();
+                add(tally, "Offer", HouseSaleRecord.class, offersPQ.size());
+                add(tally, "Offer", ArrayList.class, offersPQ.size()); // matchedBids, backing array empty between steps
+                add(tally, "Offer", treeMapEntryClass, offersPQ.size() + offersPQ.uncoveredSize());
+            }
+            PriorityQueue2D<HousingMarketRecord> offersPY = region.houseSaleMarket.getOffersPY();
+            add(tally, "Offer", treeMapEntryClass, offersPY.size() + offersPY.uncoveredSize());
+            nRegion++;
+        }
+        // Houses, including those owned by the construction sector
+        for (House house : Model.houseRegistry) {
+            int i = regionIndex.get(house.region);
+            nEntities.get(i)[1]++;
+            add(tallies.get(i), "House", House.class, 1);
+        }
+        // Write report and add up bytes
+        long totalBytes = 0;
+        for (int i = 0; i < tallies.size(); i++) {
+            long [] n = nEntities.get(i);
+            for (Map.Entry<String, Tally> row : tallies.get(i).entrySet()) {
+                String entity = row.getKey().substring(0, row.getKey().indexOf(','));
+                long entities = n[entity.equals("Household") ? 0 : entity.equals("House") ? 1
+                        : entity.equals("Mortgage") ? 2 : 3];
+                totalBytes += row.getValue().bytes;
+                if (outfile != null) {
+                    outfile.println(Model.t + ", " + i + ", " + row.getKey() + ", " + row.getValue().objects + ", "
+                            + row.getValue().bytes + ", " + entities + ", "
+                            + ((entities > 0) ? (double)row.getValue().bytes/entities : 0.0));
+                }
+            }
+        }
+        if (outfile != null) outfile.flush();
+        // Check projected footprint against the budget, if set
+        if (config.getMemoryBudgetFraction() > 0.0 && totalHouseholds > 0) {
+            checkBudget((double)totalBytes/totalHouseholds, "accounted at time " + Model.t);
+        }
+    }
+
+    public void endOfSim() {
+        if (outfile != null) outfile.close();
+        outfile = null;
+    }
+
+    /**
+     * Stop the simulation if the footprint projected for TARGET_POPULATION households exceeds the memory budget
+     *
+     * @param bytesPerHousehold Bytes retained per household, including its share of houses, mortgages and offers
+     * @param source Description of where the bytes per household estimate comes from
+     */
+    private void checkBudget(double bytesPerHousehold, String source) {
+        double projectedBytes = bytesPerHousehold*config.TARGET_POPULATION;
+        double budget = config.getMemoryBudgetFraction()*Runtime.getRuntime().maxMemory();
+        if (projectedBytes > budget) {
+            System.err.println("Memory budget exceeded: " + config.TARGET_POPULATION + " households at "
+                    + String.format("%.1f", bytesPerHousehold) + " bytes per household (" + source + ") project to "
+                    + String.format("%.1f", projectedBytes/(1024*1024)) + " MB, above the budget of "
+                    + String.format("%.1f", budget/(1024*1024)) + " MB (MEMORY_BUDGET_FRACTION = "
+                    + config.getMemoryBudgetFraction() + " of the maximum heap size)");
+            System.exit(1);
+        }
+    }
+
+    private void add(Map<String, Tally> tally, String entity, Class<?> c, long objects) {
+        Tally row = tally.computeIfAbsent(entity + ", " + c.getName().substring(c.getName().lastIndexOf('.') + 1), k -> new Tally());
+        row.objects += objects;
+        row.bytes += objects*shallowSize(c);
+    }
+
+    private void addArray(Map<String, Tally> tally, String entity, String name, long arrays, long elements) {
+        Tally row = tally.computeIfAbsent(entity + ", " + name, k -> new Tally());
+        row.objects += arrays;
+        int elementBytes = name.startsWith("double") ? 8 : name.startsWith("int") ? 4
+                : name.startsWith("boolean") ? 1 : REFERENCE;
+        row.bytes += align(arrays*ARRAY_HEADER + elements*elementBytes);
+    }
+
+    /**
+     * @param c Class of the object
+     * @return Shallow size in bytes of an instance of the class, i.e., header plus declared instance fields of the
+     * class and its superclasses, aligned to 8 bytes
+     */
+    private long shallowSize(Class<?> c) {
+        Long size = shallowSizes.get(c);
+        if (size == null) {
+            long bytes = OBJECT_HEADER;
+            for (Class<?> k = c; k != null; k = k.getSuperclass()) {
+                for (Field field : k.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) continue;
+                    Class<?> type = field.getType();
+                    if (type == long.class || type == double.class) {
+                        bytes += 8;
+                    } else if (type == int.class || type == float.class) {
+                        bytes += 4;
+                    } else if (type == short.class || type == char.class) {
+                        bytes += 2;
+                    } else if (type == byte.class || type == boolean.class) {
+                        bytes += 1;
+                    } else {
+                        bytes += REFERENCE;
+                    }
+                }
+            }
+            size = align(bytes);
+            shallowSizes.put(c, size);
+        }
+        return size;
+    }
+
+    private static long align(long bytes) { return (bytes + 7) & ~7L; }
+
+    private static Class<?> loadClass(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            System.out.println("Strange: class " + name + " not found, counting its instances as plain objects");
+            return Object.class;
+        }
+    }
+}
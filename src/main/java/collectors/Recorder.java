@@ -92,7 +92,8 @@ public class Recorder {
         }
     }
 
-    public void openSingleRunFiles(int nRun) {
+    public void openSingleRunFiles(boolean recordGeneral, int nRun) {
+        if (!recordGeneral) return;
         // Try opening output files (national and for each region) and write first row header with column names
         try {
             outfile = new PrintWriter(outputFolder + "Output-run" + nRun + ".csv", "UTF-8");
@@ -135,7 +136,7 @@ public class Recorder {
         }
     }
 
-    public void writeTimeStampResults(boolean recordCoreIndicators, int time) {
+    public void writeTimeStampResults(boolean recordGeneral, boolean recordCoreIndicators, int time) {
         if (recordCoreIndicators) {
             // If not at the first point in time...
             if (time > 0) {
@@ -172,6 +173,9 @@ public class Recorder {
             interestRateSpread.print(Model.coreIndicators.getInterestRateSpread());
         }
 
+        // If not requested, skip general output results
+        if (!recordGeneral) return;
+
         // Write general output results to output file
         outfile.println(time + ", " +
                 // Number of households of each type
@@ -267,7 +271,7 @@ public class Recorder {
         }
     }
 
-    public void finishRun(boolean recordCoreIndicators) {
+    public void finishRun(boolean recordGeneral, boolean recordCoreIndicators) {
         if (recordCoreIndicators) {
             ooLTI.println("");
             btlLTV.println("");
@@ -284,9 +288,11 @@ public class Recorder {
             housePriceGrowth.println("");
             interestRateSpread.println("");
         }
-        outfile.close();
-        for (int i = 0; i < Model.geography.size(); i++) {
-            regionalOutfiles[i].close();
+        if (recordGeneral) {
+            outfile.close();
+            for (int i = 0; i < Model.geography.size(); i++) {
+                regionalOutfiles[i].close();
+            }
         }
     }
 
@@ -5,9 +5,19 @@ import housing.Household;
 import housing.Model;
 import housing.Region;
 
+import java.util.Arrays;
+
 /**************************************************************************************************
  * Class to collect regional household statistics
  *
+ * The number of households of each type and their total incomes are not recounted at every step,
+ * but kept up to date by the households themselves, which report any change of type (on purchase,
+ * sale, rental, eviction, end of tenancy and inheritance) or of pre-tax income, as well as their
+ * birth and death. Similarly, the monthly rents paid by renters are summed per quality band of
+ * their homes, so that the sum of stock yields only needs the current average price per quality.
+ * Note that dormant households (in LAZY_DORMANT_HOUSEHOLDS mode) report their income only when
+ * their finances are brought up to date.
+ *
  * @author Adrian Carro
  * @since 06/09/2017
  *
@@ -18,10 +28,25 @@ public class RegionalHouseholdStats extends CollectorBase {
     //----- Fields -----//
     //------------------//
 
+    // Types of households, as reported by the households themselves
+    public static final int ACTIVE_BTL = 0; // BTL households with, at least, one BTL property
+    public static final int BTL_OWNER_OCCUPIER = 1; // BTL households owning their home but without any BTL property
+    public static final int BTL_HOMELESS = 2; // Homeless BTL households
+    public static final int NON_BTL_OWNER_OCCUPIER = 3; // Non-BTL households owning their home
+    public static final int RENTING = 4; // Non-BTL households renting their home
+    public static final int NON_BTL_HOMELESS = 5; // Homeless non-BTL households
+    public static final int UNCOUNTED = 6; // None of the above (should never happen)
+    public static final int NONE = -1; // Not counted by any regional collector (unborn or dead households)
+
     // General fields
     private Config  config = Model.config; // Passes the Model's configuration parameters object to a private field
     private Region  region;
 
+    // Running counters and sums, kept up to date as households report changes
+    private int []      nHouseholdsPerType = new int[UNCOUNTED + 1];
+    private double []   monthlyIncomePerType = new double[UNCOUNTED + 1]; // Sum of monthly pre-tax incomes
+    private double []   monthlyRentPerQuality; // Sum of monthly rents paid by renters, per quality band of their homes
+
     // Fields for counting numbers of the different types of households and household conditions
     private int     nBTL; // Number of buy-to-let (BTL) households, i.e., households with the BTL gene (includes both active and inactive)
     private int     nActiveBTL; // Number of BTL households with, at least, one BTL property
@@ -52,6 +77,7 @@ public class RegionalHouseholdStats extends CollectorBase {
     public RegionalHouseholdStats(Region region) {
         setActive(true);
         this.region = region;
+        monthlyRentPerQuality = new double[config.N_QUALITY];
     }
 
     //-------------------//
@@ -74,67 +100,79 @@ public class RegionalHouseholdStats extends CollectorBase {
         rentingAnnualisedTotalIncome = 0.0;
         homelessAnnualisedTotalIncome = 0.0;
         sumStockYield = 0.0;
+        Arrays.fill(nHouseholdsPerType, 0);
+        Arrays.fill(monthlyIncomePerType, 0.0);
+        Arrays.fill(monthlyRentPerQuality, 0.0);
     }
 
+    /**
+     * Derive the statistics of this step from the running counters and sums. As none of these statistics are used by
+     * the model's behaviour, they are only derived if this collector is active, while the running counters and sums
+     * are always kept up to date, so that the collector can be activated at any time
+     */
     public void record() {
-        // Initialise variables to sum
-        nBTL = 0;
-        nActiveBTL = 0;
-        nBTLOwnerOccupier = 0;
-        nBTLHomeless = 0;
-        nNonBTLOwnerOccupier = 0;
-        nRenting = 0;
-        nNonBTLHomeless = 0;
-        activeBTLAnnualisedTotalIncome = 0.0;
-        ownerOccupierAnnualisedTotalIncome = 0.0;
-        rentingAnnualisedTotalIncome = 0.0;
-        homelessAnnualisedTotalIncome = 0.0;
+        if (!isActive()) return;
+        // Counts and incomes per type of household, as kept up to date by the households
+        nActiveBTL = nHouseholdsPerType[ACTIVE_BTL];
+        nBTLOwnerOccupier = nHouseholdsPerType[BTL_OWNER_OCCUPIER];
+        nBTLHomeless = nHouseholdsPerType[BTL_HOMELESS];
+        nBTL = nActiveBTL + nBTLOwnerOccupier + nBTLHomeless;
+        nNonBTLOwnerOccupier = nHouseholdsPerType[NON_BTL_OWNER_OCCUPIER];
+        nRenting = nHouseholdsPerType[RENTING];
+        nNonBTLHomeless = nHouseholdsPerType[NON_BTL_HOMELESS];
+        // Annualise monthly income data
+        activeBTLAnnualisedTotalIncome = monthlyIncomePerType[ACTIVE_BTL]*config.constants.MONTHS_IN_YEAR;
+        ownerOccupierAnnualisedTotalIncome = (monthlyIncomePerType[BTL_OWNER_OCCUPIER]
+                + monthlyIncomePerType[NON_BTL_OWNER_OCCUPIER])*config.constants.MONTHS_IN_YEAR;
+        rentingAnnualisedTotalIncome = monthlyIncomePerType[RENTING]*config.constants.MONTHS_IN_YEAR;
+        homelessAnnualisedTotalIncome = (monthlyIncomePerType[BTL_HOMELESS]
+                + monthlyIncomePerType[NON_BTL_HOMELESS])*config.constants.MONTHS_IN_YEAR;
+        // Stock yields of the homes of renters, given the current average price for each quality band
         sumStockYield = 0.0;
-        // TODO: Print to screen and check all these numbers!
-        // Run through all households counting population in each type and summing their gross incomes
-        for (Household h : region.households) {
-            if (h.behaviour.isPropertyInvestor()) {
-                ++nBTL;
-                // Active BTL investors
-                if (h.nInvestmentProperties() > 0) {
-                    ++nActiveBTL;
-                    activeBTLAnnualisedTotalIncome += h.getMonthlyPreTaxIncome();
-                // Inactive BTL investors who own their house
-                } else if (h.nInvestmentProperties() == 0) {
-                    ++nBTLOwnerOccupier;
-                    ownerOccupierAnnualisedTotalIncome += h.getMonthlyPreTaxIncome();
-                // Inactive BTL investors in social housing
-                } else {
-                    ++nBTLHomeless;
-                    homelessAnnualisedTotalIncome += h.getMonthlyPreTaxIncome();
-                }
-            } else {
-                // Non-BTL investors who own their house
-                if (h.isHomeowner()) {
-                    ++nNonBTLOwnerOccupier;
-                    ownerOccupierAnnualisedTotalIncome += h.getMonthlyPreTaxIncome();
-                // Non-BTL investors renting
-                } else if (h.isRenting()) {
-                    ++nRenting;
-                    rentingAnnualisedTotalIncome += h.getMonthlyPreTaxIncome();
-                    if (region.regionalHousingMarketStats.getExpAvSalePriceForQuality(h.getHome().getQuality()) > 0) {
-                        sumStockYield += h.getHousePayments().get(h.getHome()).monthlyPayment
-                                *config.constants.MONTHS_IN_YEAR
-                                /region.regionalHousingMarketStats.getExpAvSalePriceForQuality(h.getHome().getQuality());
-                    }
-                // Non-BTL investors in social housing
-                } else if (h.isInSocialHousing()) {
-                    // TODO: Once numbers are checked, this "else if" can be replaced by an "else"
-                    ++nNonBTLHomeless;
-                    homelessAnnualisedTotalIncome += h.getMonthlyPreTaxIncome();
-                }
-            }
+        for (int q = 0; q < monthlyRentPerQuality.length; q++) {
+            double price = region.regionalHousingMarketStats.getExpAvSalePriceForQuality(q);
+            if (price > 0) sumStockYield += monthlyRentPerQuality[q]*config.constants.MONTHS_IN_YEAR/price;
         }
-        // Annualise monthly income data
-        activeBTLAnnualisedTotalIncome *= config.constants.MONTHS_IN_YEAR;
-        ownerOccupierAnnualisedTotalIncome *= config.constants.MONTHS_IN_YEAR;
-        rentingAnnualisedTotalIncome *= config.constants.MONTHS_IN_YEAR;
-        homelessAnnualisedTotalIncome *= config.constants.MONTHS_IN_YEAR;
+    }
+
+    /**
+     * @param h Household
+     * @return Type of the household, for the purpose of these statistics
+     */
+    public static int typeOf(Household h) {
+        if (h.behaviour.isPropertyInvestor()) {
+            if (h.nInvestmentProperties() > 0) return ACTIVE_BTL;
+            if (h.nInvestmentProperties() == 0) return BTL_OWNER_OCCUPIER;
+            return BTL_HOMELESS;
+        }
+        if (h.isHomeowner()) return NON_BTL_OWNER_OCCUPIER;
+        if (h.isRenting()) return RENTING;
+        if (h.isInSocialHousing()) return NON_BTL_HOMELESS;
+        return UNCOUNTED;
+    }
+
+    /**
+     * Move the contribution of a household from an old type and income to a new one. Use NONE as old type for
+     * households being born and as new type for households dying
+     */
+    public void updateHousehold(int oldType, double oldMonthlyIncome, int newType, double newMonthlyIncome) {
+        if (oldType != NONE) {
+            nHouseholdsPerType[oldType]--;
+            monthlyIncomePerType[oldType] -= oldMonthlyIncome;
+        }
+        if (newType != NONE) {
+            nHouseholdsPerType[newType]++;
+            monthlyIncomePerType[newType] += newMonthlyIncome;
+        }
+    }
+
+    /**
+     * Move the rent paid by a renter from an old home quality and rent to a new one. Use NONE as quality for households
+     * not renting
+     */
+    public void updateRent(int oldQuality, double oldMonthlyRent, int newQuality, double newMonthlyRent) {
+        if (oldQuality != NONE) monthlyRentPerQuality[oldQuality] -= oldMonthlyRent;
+        if (newQuality != NONE) monthlyRentPerQuality[newQuality] += newMonthlyRent;
     }
 
     //----- Getter/setter methods -----//
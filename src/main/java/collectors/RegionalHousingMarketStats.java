@@ -29,8 +29,9 @@ public class RegionalHousingMarketStats extends CollectorBase {
     private int                     nSellers;
     private double                  sumBidPrices;
     private double                  sumOfferPrices;
-    private double []               offerPrices;
-    private double []               bidPrices;
+    private double []               offerPrices; // Only kept if recordPriceDistributions is set
+    private double []               bidPrices; // Only kept if recordPriceDistributions is set
+    private boolean                 recordPriceDistributions; // True if a consumer has requested the price arrays
 
     // Variables computed during market clearing, counters
     private int                     salesCount; // Dummy variable to count sales
@@ -57,6 +58,7 @@ public class RegionalHousingMarketStats extends CollectorBase {
     // Other variables computed after market clearing
     private double                  expAvDaysOnMarket; // Exponential moving average of the number of days on the market
     private double []               expAvSalePricePerQuality; // Exponential moving average of the price for each quality band
+    private double []               minExpAvSalePriceFromQuality; // Minimum of expAvSalePricePerQuality over each quality band and all bands above
     private double                  housePriceIndex;
     private DescriptiveStatistics   HPIRecord;
     private double                  annualHousePriceAppreciation;
@@ -116,12 +118,32 @@ public class RegionalHousingMarketStats extends CollectorBase {
         expAvSalePricePerQuality = new double[config.N_QUALITY];
         System.arraycopy(referencePricePerQuality, 0, expAvSalePricePerQuality, 0,
                 config.N_QUALITY); // Exponential averaging of prices is initialised from reference prices
+        minExpAvSalePriceFromQuality = new double[config.N_QUALITY];
+        updateMinExpAvSalePriceFromQuality();
         housePriceIndex = 1.0;
         for (int i = 0; i < config.derivedParams.HPI_RECORD_LENGTH; ++i) HPIRecord.addValue(1.0);
         annualHousePriceAppreciation = housePriceAppreciation(1);
         longTermHousePriceAppreciation = housePriceAppreciation(config.HPA_YEARS_TO_CHECK);
     }
 
+    /**
+     * Start the price statistics from given levels, as if prices had been steady at these levels for a long time, for
+     * simulations that begin from a stationary population
+     *
+     * @param hpi House price index, relative to the reference prices
+     * @param pricePerQuality Average price for each quality band
+     * @param daysOnMarket Average number of days on the market
+     */
+    public void setInitialPrices(double hpi, double [] pricePerQuality, double daysOnMarket) {
+        System.arraycopy(pricePerQuality, 0, expAvSalePricePerQuality, 0, config.N_QUALITY);
+        updateMinExpAvSalePriceFromQuality();
+        expAvDaysOnMarket = daysOnMarket;
+        housePriceIndex = hpi;
+        for (int i = 0; i < config.derivedParams.HPI_RECORD_LENGTH; ++i) HPIRecord.addValue(hpi);
+        annualHousePriceAppreciation = housePriceAppreciation(1);
+        longTermHousePriceAppreciation = housePriceAppreciation(config.HPA_YEARS_TO_CHECK);
+    }
+
     //----- Pre-market-clearing methods -----//
 
     /**
@@ -138,29 +160,20 @@ public class RegionalHousingMarketStats extends CollectorBase {
         sumSalePricePerQualityCount = new double[config.N_QUALITY];
         nSalesPerQualityCount = new int[config.N_QUALITY];
 
-        // Re-initialise to zero variables computed before market clearing
+        // Record numbers and sums of bid and offer prices, as kept up to date by the market
         nBuyers = market.getBids().size();
         nSellers = market.getOffersPQ().size();
-        sumBidPrices = 0.0;
-        sumOfferPrices = 0.0;
-        offerPrices = new double[nSellers];
-        bidPrices = new double[nBuyers];
-
-
-        // Record bid prices and their average
-        int i = 0;
-        for(HouseBuyerRecord bid : market.getBids()) {
-            sumBidPrices += bid.getPrice();
-            bidPrices[i] = bid.getPrice();
-            ++i;
-        }
-
-        // Record offer prices, their average, and the number of empty and new houses
-        i = 0;
-        for(HousingMarketRecord sale : market.getOffersPQ()) {
-            sumOfferPrices += sale.getPrice();
-            offerPrices[i] = sale.getPrice();
-            ++i;
+        sumBidPrices = market.getSumBidPrices();
+        sumOfferPrices = market.getSumOfferPrices();
+
+        // Record full bid and offer price arrays only if requested
+        if (recordPriceDistributions) {
+            offerPrices = new double[nSellers];
+            bidPrices = new double[nBuyers];
+            int i = 0;
+            for(HouseBuyerRecord bid : market.getBids()) bidPrices[i++] = bid.getPrice();
+            i = 0;
+            for(HousingMarketRecord sale : market.getOffersPQ()) offerPrices[i++] = sale.getPrice();
         }
     }
 
@@ -176,6 +189,8 @@ public class RegionalHousingMarketStats extends CollectorBase {
     // TODO: Need to think if this method and recordTransaction can be joined in a single method!
     public void recordSale(HouseBuyerRecord purchase, HouseSaleRecord sale) {
         salesCount += 1;
+        // Sales to first-time buyers and buy-to-let investors are only used for output
+        if (!isActive() && !Model.transactionRecorder.isActive()) return;
         MortgageAgreement mortgage = purchase.buyer.mortgageFor(sale.house);
         if(mortgage != null) {
             if(mortgage.isFirstTimeBuyer) {
@@ -237,18 +252,28 @@ public class RegionalHousingMarketStats extends CollectorBase {
         }
         // ... HPIRecord with the new house price index value
         HPIRecord.addValue(housePriceIndex);
-        // ... current house price appreciation values (both annual and long term value)
-        annualHousePriceAppreciation = housePriceAppreciation(1);
+        // ... current house price appreciation values (annual value only used for output)
+        if (isActive()) annualHousePriceAppreciation = housePriceAppreciation(1);
         longTermHousePriceAppreciation = housePriceAppreciation(config.HPA_YEARS_TO_CHECK);
         // ... relaxation of the price distribution towards the reference price distribution (described in appendix A3)
         for(int q = 0; q < config.N_QUALITY; q++) {
             expAvSalePricePerQuality[q] = config.MARKET_AVERAGE_PRICE_DECAY*expAvSalePricePerQuality[q]
                     + (1.0 - config.MARKET_AVERAGE_PRICE_DECAY)*(housePriceIndex*referencePricePerQuality[q]);
         }
+        updateMinExpAvSalePriceFromQuality();
         // ...record number of unsold new build houses
-        nUnsoldNewBuild = 0;
-        for(HousingMarketRecord sale : market.getOffersPQ()) {
-            if(((HouseSaleRecord)sale).house.owner == Model.construction) nUnsoldNewBuild++;
+        nUnsoldNewBuild = market.getnConstructionOffers();
+    }
+
+    /**
+     * Update the running minimum of the average prices from each quality band upwards, which is non-decreasing in
+     * quality even if prices themselves are not, and thus allows for binary searches in getMaxQualityForPrice
+     */
+    private void updateMinExpAvSalePriceFromQuality() {
+        double min = Double.POSITIVE_INFINITY;
+        for (int q = config.N_QUALITY - 1; q >= 0; q--) {
+            min = Math.min(min, expAvSalePricePerQuality[q]);
+            minExpAvSalePriceFromQuality[q] = min;
         }
     }
 
@@ -291,6 +316,18 @@ public class RegionalHousingMarketStats extends CollectorBase {
     double [] getOfferPrices() { return offerPrices; }
     double [] getBidPrices() { return bidPrices; }
 
+    /**
+     * Request (or stop requesting) the full arrays of offer and bid prices before each market clearing. If not
+     * requested, these arrays are left empty and only the numbers and sums of prices are recorded
+     */
+    public void setRecordPriceDistributions(boolean recordPriceDistributions) {
+        this.recordPriceDistributions = recordPriceDistributions;
+        if (!recordPriceDistributions) {
+            offerPrices = new double[0];
+            bidPrices = new double[0];
+        }
+    }
+
     // Getters for variables computed after market clearing to keep the previous values during the clearing
     int getnSales() { return nSales; }
     int getnFTBSales() { return nFTBSales; }
@@ -378,13 +415,23 @@ public class RegionalHousingMarketStats extends CollectorBase {
     }
     /**
      * Computes the best quality of house that a buyer could expect to get for a given price. If return value is -1,
-     * the buyer can't afford even lowest quality house.
+     * the buyer can't afford even lowest quality house. Note that, as average prices need not be monotonic in quality,
+     * this is the highest quality whose average price is not above the given price, found as the highest quality for
+     * which the minimum average price over that and all higher qualities is not above the given price
      *
      * @param price Price the buyer is ready to pay
      */
     public int getMaxQualityForPrice(double price) {
-        int q = config.N_QUALITY - 1;
-        while(q >= 0 && getExpAvSalePriceForQuality(q) > price) --q;
-        return q;
+        int lo = 0; // Lowest candidate quality
+        int hi = config.N_QUALITY; // One above the highest candidate quality
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (minExpAvSalePriceFromQuality[mid] <= price) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo - 1;
     }
 }
@@ -78,6 +78,25 @@ public class RegionalRentalMarketStats extends RegionalHousingMarketStats {
         longTermExpAvFlowYield = config.RENT_GROSS_YIELD;
     }
 
+    /**
+     * Start the rental statistics from given levels, as if these had been steady for a long time, for simulations that
+     * begin from a stationary population
+     *
+     * @param flowYield Gross rental yield
+     * @param monthsOnMarketPerQuality Average months on the market for each quality band
+     * @param occupancyPerQuality Average occupancy for each quality band
+     * @param flowYieldPerQuality Average gross rental yield for each quality band
+     */
+    public void setInitialRentalStats(double flowYield, double [] monthsOnMarketPerQuality,
+                                      double [] occupancyPerQuality, double [] flowYieldPerQuality) {
+        System.arraycopy(monthsOnMarketPerQuality, 0, expAvMonthsOnMarketPerQuality, 0, config.N_QUALITY);
+        System.arraycopy(occupancyPerQuality, 0, avOccupancyPerQuality, 0, config.N_QUALITY);
+        System.arraycopy(flowYieldPerQuality, 0, avFlowYieldPerQuality, 0, config.N_QUALITY);
+        avFlowYield = flowYield;
+        expAvFlowYield = flowYield;
+        longTermExpAvFlowYield = flowYield;
+    }
+
     //----- Rental-specific pre-market-clearing methods -----//
 
     /**
@@ -46,8 +46,8 @@ public class RentalMarketStats extends HousingMarketStats {
      */
     public RentalMarketStats(ArrayList<Region> geography) {
         super(geography);
-        setActive(true);
         this.geography = geography;
+        setActive(true);
         // TODO: The model's housingMarketStats object should be passed as a parameter or with a setter (in case of mutual dependence)
         this.housingMarketStats = Model.housingMarketStats;
         referencePricePerQuality = new double[config.N_QUALITY];
@@ -79,6 +79,25 @@ public class RentalMarketStats extends HousingMarketStats {
         longTermExpAvFlowYield = config.RENT_GROSS_YIELD;
     }
 
+    /**
+     * Start the rental statistics from given levels, as if these had been steady for a long time, for simulations that
+     * begin from a stationary population
+     *
+     * @param flowYield Gross rental yield
+     * @param monthsOnMarketPerQuality Average months on the market for each quality band
+     * @param occupancyPerQuality Average occupancy for each quality band
+     * @param flowYieldPerQuality Average gross rental yield for each quality band
+     */
+    public void setInitialRentalStats(double flowYield, double [] monthsOnMarketPerQuality,
+                                      double [] occupancyPerQuality, double [] flowYieldPerQuality) {
+        System.arraycopy(monthsOnMarketPerQuality, 0, expAvMonthsOnMarketPerQuality, 0, config.N_QUALITY);
+        System.arraycopy(occupancyPerQuality, 0, avOccupancyPerQuality, 0, config.N_QUALITY);
+        System.arraycopy(flowYieldPerQuality, 0, avFlowYieldPerQuality, 0, config.N_QUALITY);
+        avFlowYield = flowYield;
+        expAvFlowYield = flowYield;
+        longTermExpAvFlowYield = flowYield;
+    }
+
     /**
      * This method extends the corresponding one at the HousingMarketStats class with some rental-specific variables.
      * Collects current values, apart from updating those to be computed, for all relevant variables from the regional
@@ -151,6 +170,27 @@ public class RentalMarketStats extends HousingMarketStats {
         }
     }
 
+    /**
+     * Passes on the activation or deactivation of this collector to the regional rental market statistics objects
+     * Note: Overrides equivalent at HousingMarketStats
+     */
+    @Override
+    void setRegionalActive(boolean active) {
+        for (Region region: geography) region.regionalRentalMarketStats.setActive(active);
+    }
+
+    /**
+     * Passes on the request for the full arrays of offer and bid prices to the regional rental market statistics
+     * objects
+     * Note: Overrides equivalent at HousingMarketStats
+     */
+    @Override
+    void setRegionalRecordPriceDistributions(boolean recordPriceDistributions) {
+        for (Region region: geography) {
+            region.regionalRentalMarketStats.setRecordPriceDistributions(recordPriceDistributions);
+        }
+    }
+
     /**
      * Collects all offer prices from the regional rental market statistics objects
      * Note: Overrides equivalent at RentalMarketStats
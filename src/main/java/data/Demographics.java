@@ -57,8 +57,7 @@ public class Demographics {
 	 * there is no divorce and the male always dies first
 	 */
     // TODO: Clarify that the model was so far killing everybody over 105 with probability 1 per month
-    public static ArrayList<Double[]> probDeathGivenAgeData =
-            readProbDeathGivenAge(Model.config.DATA_DEATH_PROB_GIVEN_AGE);
+    public static double [][] probDeathGivenAgeData = readProbDeathGivenAge(Model.config.DATA_DEATH_PROB_GIVEN_AGE);
 
     /**
      * Target number of households for each region. Note that we are using Local Authority Districts as regions and that
@@ -80,7 +79,7 @@ public class Demographics {
      * @return probability Probability of death for the given age in years (double)
      */
     public static double probDeathGivenAge(double ageInYears) {
-        for (Double[] band : probDeathGivenAgeData) {
+        for (double [] band : probDeathGivenAgeData) {
             if(ageInYears<band[1]) return(band[2]);
         }
         return(Model.config.constants.MONTHS_IN_YEAR);
@@ -90,17 +89,17 @@ public class Demographics {
      * Method to read bin edges and the corresponding death probabilities from a file
      *
      * @param fileName String with name of file (address inside source folder)
-     * @return probDeathGivenAgeData ArrayList of arrays of (3) Doubles (age edge min, age edge max, prob)
+     * @return probDeathGivenAgeData Array of arrays of (3) doubles (age edge min, age edge max, prob)
      */
-    public static ArrayList<Double[]> readProbDeathGivenAge(String fileName) {
-        ArrayList<Double[]> probDeathGivenAgeData = new ArrayList<>();
+    public static double [][] readProbDeathGivenAge(String fileName) {
+        ArrayList<double []> probDeathGivenAgeData = new ArrayList<>();
         // Try-with-resources statement
         try (BufferedReader buffReader = new BufferedReader(new FileReader(fileName))) {
             String line = buffReader.readLine();
             while (line != null) {
                 if (line.charAt(0) != '#') {
                     try {
-                        Double [] band = new Double[3];
+                        double [] band = new double[3];
                         band[0] = Double.parseDouble(line.split(",")[0].trim());
                         band[1] = Double.parseDouble(line.split(",")[1].trim());
                         band[2] = Double.parseDouble(line.split(",")[2].trim());
@@ -117,7 +116,7 @@ public class Demographics {
             System.out.println("Exception " + ioe + " while trying to read file '" + fileName + "'");
             ioe.printStackTrace();
         }
-        return probDeathGivenAgeData;
+        return probDeathGivenAgeData.toArray(new double[probDeathGivenAgeData.size()][]);
     }
 
     /**
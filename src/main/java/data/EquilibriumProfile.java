@@ -0,0 +1,168 @@
+package data;
+
+import housing.Model;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**************************************************************************************************
+ * Class to read the equilibrium profile of the population, used to start simulations from a near-
+ * stationary state instead of from an empty model. The profile gathers the tenure, wealth and
+ * mortgage debt of households in cells defined by the age band of the household representative
+ * person, the income quartile and the buy-to-let investor gene, together with the levels of house
+ * prices, rents and mortgage interest rates, overall and per quality band, as sampled from the
+ * stationary state of a long simulation. Cells keep sums over all sampled households, rather than averages, so that profiles
+ * sampled at different times can simply be added up
+ *
+ *************************************************************************************************/
+public class EquilibriumProfile {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    // Cells of the profile
+    public static final double  MIN_AGE = 15.0; // Lower edge of the first age band
+    public static final double  AGE_BAND_WIDTH = 5.0;
+    public static final int     N_AGE_BANDS = 19; // The last age band is open-ended
+    public static final int     N_INCOME_QUARTILES = 4;
+    public static final int     N_CELLS = 2*N_AGE_BANDS*N_INCOME_QUARTILES;
+
+    // Columns of each cell, as sums over all the households sampled in the cell
+    public static final int     HOUSEHOLDS = 0;
+    public static final int     HOMEOWNERS = 1;
+    public static final int     RENTERS = 2;
+    public static final int     IN_SOCIAL_HOUSING = 3;
+    public static final int     OTHER_HOUSES = 4; // Houses owned apart from the home
+    public static final int     SAVING_HOMEOWNERS = 5; // Households with a bank balance above one, kept per tenure
+    public static final int     LN_BANK_BALANCE_HOMEOWNERS = 6; // Sums over households with a bank balance above one
+    public static final int     LN_BANK_BALANCE_SQUARED_HOMEOWNERS = 7;
+    public static final int     SAVING_RENTERS = 8;
+    public static final int     LN_BANK_BALANCE_RENTERS = 9;
+    public static final int     LN_BANK_BALANCE_SQUARED_RENTERS = 10;
+    public static final int     SAVING_IN_SOCIAL_HOUSING = 11;
+    public static final int     LN_BANK_BALANCE_IN_SOCIAL_HOUSING = 12;
+    public static final int     LN_BANK_BALANCE_SQUARED_IN_SOCIAL_HOUSING = 13;
+    public static final int     HOME_MORTGAGES = 14; // Homes with principal left on their mortgage
+    public static final int     HOME_LTV = 15; // Principal left over purchase price of these homes
+    public static final int     HOME_PAYMENTS_LEFT = 16;
+    public static final int     OTHER_MORTGAGES = 17; // Houses other than the home with principal left on their mortgage
+    public static final int     OTHER_LTV = 18;
+    public static final int     OTHER_PAYMENTS_LEFT = 19;
+    public static final int     N_COLUMNS = 20;
+
+    // Market levels
+    public static final int     SALE_HPI = 0;
+    public static final int     RENTAL_HPI = 1;
+    public static final int     RENTAL_FLOW_YIELD = 2;
+    public static final int     MORTGAGE_INTEREST_RATE = 3; // Annual rate
+    public static final int     SALE_DAYS_ON_MARKET = 4;
+    public static final int     RENTAL_DAYS_ON_MARKET = 5;
+    public static final int     N_MARKET_LEVELS = 6;
+
+    // Columns of each quality band, as averages over samples
+    public static final int     SALE_PRICE = 0;
+    public static final int     RENT = 1;
+    public static final int     RENTAL_MONTHS_ON_MARKET = 2;
+    public static final int     RENTAL_OCCUPANCY = 3;
+    public static final int     RENTAL_FLOW_YIELD_OF_QUALITY = 4;
+    public static final int     N_QUALITY_COLUMNS = 5;
+
+    public static double [][]   cells = new double[N_CELLS][N_COLUMNS];
+    public static double []     marketLevels = new double[N_MARKET_LEVELS];
+    public static double [][]   qualityBands = new double[N_QUALITY_COLUMNS][Model.config.N_QUALITY]; // Indexed by column first
+
+    static {
+        readProfile(Model.config.DATA_EQUILIBRIUM_PROFILE);
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * @param age Age of the household representative person
+     * @param incomePercentile Income percentile of the household
+     * @param isInvestor True if the household has the buy-to-let investor gene
+     * @return Index of the cell of the profile for such a household
+     */
+    public static int cellOf(double age, double incomePercentile, boolean isInvestor) {
+        int band = (int)((age - MIN_AGE)/AGE_BAND_WIDTH);
+        band = Math.max(0, Math.min(band, N_AGE_BANDS - 1));
+        int quartile = Math.min((int)(incomePercentile*N_INCOME_QUARTILES), N_INCOME_QUARTILES - 1);
+        return (band*N_INCOME_QUARTILES + quartile)*2 + (isInvestor ? 1 : 0);
+    }
+
+    /**
+     * Method to read the market levels, the quality bands and the cells of the profile from a file. The first line which
+     * is not a comment holds the market levels. Each of the following lines holds either a quality band, as quality and
+     * the N_QUALITY_COLUMNS averages of the band, or a cell, as age band min and max, income quartile, investor gene (0
+     * or 1) and the N_COLUMNS sums of the cell
+     *
+     * @param fileName String with name of file (address inside source folder)
+     */
+    private static void readProfile(String fileName) {
+        boolean isMarketLine = true;
+        // Try-with-resources statement
+        try (BufferedReader buffReader = new BufferedReader(new FileReader(fileName))) {
+            String line = buffReader.readLine();
+            while (line != null) {
+                if (line.charAt(0) != '#') {
+                    try {
+                        String [] values = line.split(",");
+                        if (isMarketLine) {
+                            for (int i = 0; i < N_MARKET_LEVELS; i++) {
+                                marketLevels[i] = Double.parseDouble(values[i].trim());
+                            }
+                            isMarketLine = false;
+                        } else if (values.length == 1 + N_QUALITY_COLUMNS) {
+                            int quality = Integer.parseInt(values[0].trim());
+                            for (int i = 0; i < N_QUALITY_COLUMNS; i++) {
+                                qualityBands[i][quality] = Double.parseDouble(values[1 + i].trim());
+                            }
+                        } else {
+                            int cell = cellOf(Double.parseDouble(values[0].trim()),
+                                    (Integer.parseInt(values[2].trim()) + 0.5)/N_INCOME_QUARTILES,
+                                    Integer.parseInt(values[3].trim()) == 1);
+                            for (int i = 0; i < N_COLUMNS; i++) {
+                                cells[cell][i] = Double.parseDouble(values[4 + i].trim());
+                            }
+                        }
+                    } catch (NumberFormatException nfe) {
+                        System.out.println("Exception " + nfe + " while trying to parse " + line
+                                + " for a line of doubles");
+                        nfe.printStackTrace();
+                    }
+                }
+                line = buffReader.readLine();
+            }
+        } catch (IOException ioe) {
+            System.out.println("Exception " + ioe + " while trying to read file '" + fileName + "'");
+            ioe.printStackTrace();
+        }
+    }
+
+    /**
+     * @param tenureColumn Column with the number of households of a tenure (HOMEOWNERS, RENTERS or IN_SOCIAL_HOUSING)
+     * @return Column with the number of households of that tenure with a bank balance above one, followed by the
+     * columns with the sums of the logarithms of their bank balances and of their squares
+     */
+    public static int savingColumn(int tenureColumn) {
+        return SAVING_HOMEOWNERS + 3*(tenureColumn - HOMEOWNERS);
+    }
+
+    //----- Getter/setter methods -----//
+
+    /**
+     * @param cell Index of the cell
+     * @param column Column to average
+     * @param countColumn Column with the number of households (or houses) over which to average
+     * @param defaultValue Value to return if the cell has no households (or houses) to average over
+     * @return Mean of the column per household (or house) counted in countColumn
+     */
+    public static double mean(int cell, int column, int countColumn, double defaultValue) {
+        if (cells[cell][countColumn] == 0.0) return defaultValue;
+        return cells[cell][column]/cells[cell][countColumn];
+    }
+}
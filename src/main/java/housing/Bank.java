@@ -1,7 +1,10 @@
 package housing;
 
 import java.io.Serializable;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import utilities.CalendarQueue;
 
 /**************************************************************************************************
  * Class to represent a mortgage-lender (i.e. a bank or building society), whose only function is
@@ -17,11 +20,21 @@ public class Bank implements Serializable {
     //----- Fields -----//
     //------------------//
 
+	// Positions of the terms of a mortgage within the arrays filled by quoteMortgage
+	public static final int             QUOTE_PRINCIPAL = 0;
+	public static final int             QUOTE_DOWN_PAYMENT = 1;
+	public static final int             QUOTE_MONTHLY_PAYMENT = 2;
+	public static final int             QUOTE_PURCHASE_PRICE = 3;
+	public static final int             QUOTE_SIZE = 4;
+
 	// General fields
 	private Config	                    config = Model.config; // Passes the Model's configuration parameters object to a private field
+	private double []                   approvalQuote = new double[QUOTE_SIZE]; // Scratch space for requestApproval
 
     // Bank fields
-    public HashSet<MortgageAgreement>	mortgages; // all unpaid mortgage contracts supplied by the bank
+    public MortgageLedger               mortgages; // all unpaid mortgage contracts supplied by the bank
+    private CalendarQueue<MortgageAgreement> maturities; // mortgages by month of their last payment
+    private ArrayList<MortgageAgreement> maturedMortgages = new ArrayList<>(); // scratch list of due maturities
     private double 		                k; // principal to monthly payment factor
     public double		                interestSpread; // current mortgage interest spread above base rate (monthly rate*12)
     private double		                baseRate;
@@ -36,6 +49,16 @@ public class Bank implements Serializable {
     private int			                nOverLTVCapLoans; // number of (non-BTL) loans above LTV cap this step
     private int			                nLoans; // total number of non-BTL loans this step
 
+    // Maximum mortgage quote cache fields, indexed by 2*(household id) for homes and 2*(household id) + 1 for BTL
+    private int                         quoteEpoch; // Changes whenever any input to the quotes not in the cache key changes
+    private int []                      cachedQuoteTime = new int[0]; // Month of each cached quote
+    private int []                      cachedQuoteEpoch = new int[0]; // quoteEpoch at the time of each cached quote
+    private double []                   cachedQuoteBankBalance = new double[0]; // Household bank balance for each quote
+    private double []                   cachedQuotePropertyIncome = new double[0]; // Household property income for each quote
+    private double []                   cachedQuoteEmploymentIncome = new double[0]; // Household employment income for each quote
+    private double []                   cachedQuoteHomeEquity = new double[0]; // Household home equity for each home quote
+    private double []                   cachedQuote = new double[0];
+
     //------------------------//
     //----- Constructors -----//
     //------------------------//
@@ -45,7 +68,8 @@ public class Bank implements Serializable {
 	 * pre-computed values.
 	 ********************************/
 	public Bank() {
-		mortgages = new HashSet<>();
+		mortgages = new MortgageLedger();
+		maturities = new CalendarQueue<>(config.derivedParams.N_PAYMENTS + 1);
 		init();
 	}
 
@@ -55,6 +79,8 @@ public class Bank implements Serializable {
 	
 	public void init() {
 		mortgages.clear();
+		maturities.clear(-1);
+		Arrays.fill(cachedQuoteTime, -1); // Quotes from a previous simulation are never valid
 		baseRate = config.BANK_INITIAL_BASE_RATE;
 		// TODO: Is this (dDemand_dInterest) a parameter? Shouldn't it depend somehow on other variables of the model?
 		dDemand_dInterest = 10*1e10;
@@ -76,6 +102,7 @@ public class Bank implements Serializable {
 	 *  Resets all the various monthly diagnostic measures ready for the next month
 	 */
 	public void resetMonthlyCounters() {
+		quoteEpoch++;
 		lastMonthsSupplyVal = supplyVal;
 		demand = 0.0;
 		supplyVal = 0.0;
@@ -122,6 +149,7 @@ public class Bank implements Serializable {
 	}
 
 	protected void recalculateK() {
+		quoteEpoch++;
 		double r = getMortgageInterestRate()/config.constants.MONTHS_IN_YEAR;
 		k = r/(1.0 - Math.pow(1.0+r, -config.derivedParams.N_PAYMENTS));
 	}
@@ -150,17 +178,21 @@ public class Bank implements Serializable {
                                          House house) {
 		MortgageAgreement approval = requestApproval(h, housePrice, desiredDownPayment, isHome);
 		if(approval == null) return(null);
+		quoteEpoch++; // Counters and the borrower's circumstances change
+
 		// --- if all's well, go ahead and arrange mortgage
-		supplyVal += approval.principal;
-		if(approval.principal > 0.0) {
+		supplyVal += approval.getPrincipal();
+		if(approval.getPrincipal() > 0.0) {
 			mortgages.add(approval);
+			// Payments start next month, so the last one is due nPayments months from now
+			scheduleMaturity(approval, Model.getTime() + approval.nPayments);
 			Model.creditSupply.recordLoan(h, approval, house);
 			++nLoans;
 			if(isHome) {
-				if(approval.principal/h.annualEmploymentIncome() > Model.centralBank.loanToIncomeRegulation(h.isFirstTimeBuyer())) {
+				if(approval.getPrincipal()/h.annualEmploymentIncome() > Model.centralBank.loanToIncomeRegulation(h.isFirstTimeBuyer())) {
 					++nOverLTICapLoans;
 				}
-				if(approval.principal/(approval.principal + approval.downPayment) > Model.centralBank.loanToValueRegulation(h.isFirstTimeBuyer(),isHome)) {
+				if(approval.getPrincipal()/(approval.getPrincipal() + approval.downPayment) > Model.centralBank.loanToValueRegulation(h.isFirstTimeBuyer(),isHome)) {
 					++nOverLTVCapLoans;
 				}
 			}
@@ -169,7 +201,80 @@ public class Bank implements Serializable {
 	}
 	
 	
-	public void endMortgageContract(MortgageAgreement mortgage) { mortgages.remove(mortgage); }
+	/*****************************
+	 * Sign a mortgage taken out before the start of a simulation that begins from a stationary population (see
+	 * EquilibriumInitialiser), at the current interest rate and with the given principal and payments left, to be paid
+	 * off in full (homes) or interest-only (buy-to-let). Unlike loans requested through requestLoan, it does not count
+	 * towards this month's supply of credit.
+	 *
+	 * @param h The borrower
+	 * @param housePrice The price the house was bought for
+	 * @param principal Principal left, zero for a house bought outright or whose mortgage has been paid off
+	 * @param nPayments Number of payments left, from this month on
+	 * @param isHome true if 'h' lives in the house
+	 * @return The mortgage, registered in the ledger if there is any principal left
+	 ****************************/
+	MortgageAgreement issueInitialMortgage(Household h, double housePrice, double principal, int nPayments,
+										   boolean isHome) {
+		MortgageAgreement mortgage = new MortgageAgreement(h, !isHome);
+		double r = getMortgageInterestRate()/config.constants.MONTHS_IN_YEAR;
+		mortgage.purchasePrice = housePrice;
+		mortgage.downPayment = Math.max(0.0, housePrice - principal);
+		mortgage.monthlyInterestRate = r;
+		if(principal > 0.0) {
+			mortgage.nPayments = nPayments;
+			if(!isHome) {
+				mortgage.monthlyPayment = principal*r;
+			} else if(r > 0.0) {
+				mortgage.monthlyPayment = principal*r/(1.0 - Math.pow(1.0 + r, -nPayments));
+			} else {
+				mortgage.monthlyPayment = principal/nPayments;
+			}
+		}
+		mortgage.setPrincipal(principal);
+		if(principal > 0.0) {
+			quoteEpoch++;
+			mortgages.add(mortgage);
+			// Payments start this month, so the last one is due nPayments - 1 months from now
+			scheduleMaturity(mortgage, Model.getTime() + nPayments - 1);
+		}
+		return mortgage;
+	}
+
+	/***
+	 * Remove a mortgage from the ledger, once paid off or matured, and from the maturity schedule, so that the bank
+	 * keeps no reference to a mortgage paid off before its last payment
+	 */
+	public void endMortgageContract(MortgageAgreement mortgage) {
+		mortgages.remove(mortgage);
+		if(mortgage.maturityTime >= 0) {
+			maturities.cancel(mortgage.maturityTime, mortgage);
+			mortgage.maturityTime = -1;
+		}
+	}
+
+	private void scheduleMaturity(MortgageAgreement mortgage, int time) {
+		mortgage.maturityTime = maturities.schedule(time, mortgage);
+	}
+
+	/***
+	 * End the contracts of all mortgages whose last payment was due this month, to be called once all households have
+	 * made their monthly payments. Mortgages paid off earlier have already been removed, and any mortgage with payments
+	 * still left is scheduled again for its new last payment.
+	 */
+	public void endMaturedMortgages() {
+		int t = Model.getTime();
+		maturities.collectDue(t, maturedMortgages);
+		for(MortgageAgreement mortgage : maturedMortgages) {
+			mortgage.maturityTime = -1; // Already out of the schedule
+			if(mortgage.nPayments == 0) {
+				endMortgageContract(mortgage);
+			} else {
+				scheduleMaturity(mortgage, t + mortgage.nPayments);
+			}
+		}
+		maturedMortgages.clear();
+	}
 
 	/********
 	 * Use this to request a mortgage approval but not actually sign a mortgage contract.
@@ -184,60 +289,99 @@ public class Bank implements Serializable {
 	public MortgageAgreement requestApproval(Household h, double housePrice, double desiredDownPayment,
                                              boolean isHome) {
 		MortgageAgreement approval = new MortgageAgreement(h, !isHome);
-		double r = getMortgageInterestRate()/config.constants.MONTHS_IN_YEAR; // monthly interest rate
+		fillQuote(h, housePrice, desiredDownPayment, isHome, approvalQuote, true);
+		approval.downPayment = approvalQuote[QUOTE_DOWN_PAYMENT];
+		approval.monthlyPayment = approvalQuote[QUOTE_MONTHLY_PAYMENT];
+		approval.nPayments = config.derivedParams.N_PAYMENTS;
+		approval.monthlyInterestRate = getMortgageInterestRate()/config.constants.MONTHS_IN_YEAR;
+		approval.setPrincipal(approvalQuote[QUOTE_PRINCIPAL]);
+		approval.purchasePrice = approvalQuote[QUOTE_PURCHASE_PRICE];
+
+		return approval;
+	}
+
+	/********
+	 * Use this to find out the terms of the mortgage the bank would approve, without creating
+	 * a mortgage contract or having any other side effect. The terms are written into the
+	 * caller's array at positions QUOTE_PRINCIPAL, QUOTE_DOWN_PAYMENT, QUOTE_MONTHLY_PAYMENT
+	 * and QUOTE_PURCHASE_PRICE, and are identical to those of requestApproval.
+	 *
+	 * @param h 			The household that is requesting the quote.
+	 * @param housePrice 	The price of the house that 'h' wants to buy
+	 * @param isHome 		does 'h' plan to live in the house?
+	 * @param quote 		Array of (at least) QUOTE_SIZE elements to write the terms to
+	 */
+	public void quoteMortgage(Household h, double housePrice, double desiredDownPayment, boolean isHome,
+							  double [] quote) {
+		fillQuote(h, housePrice, desiredDownPayment, isHome, quote, false);
+	}
+
+	private void fillQuote(Household h, double housePrice, double desiredDownPayment, boolean isHome,
+						   double [] quote, boolean verbose) {
+		double principal, downPayment;
 		double lti_principal, affordable_principal, icr_principal;
 		double liquidWealth = h.getBankBalance();
 		
 		if(isHome) liquidWealth += h.getHomeEquity();
 
 		// --- LTV constraint
-		approval.principal = housePrice*loanToValue(h.isFirstTimeBuyer(), isHome);
+		principal = housePrice*loanToValue(h.isFirstTimeBuyer(), isHome);
 
 		if(isHome) {
 			// --- affordability constraint TODO: affordability for BTL?
 			affordable_principal = Math.max(0.0,config.CENTRAL_BANK_AFFORDABILITY_COEFF*h.getMonthlyPostTaxIncome())
                     /monthlyPaymentFactor(isHome);
-			approval.principal = Math.min(approval.principal, affordable_principal);
+			principal = Math.min(principal, affordable_principal);
 
 			// --- lti constraint
 			lti_principal = h.annualEmploymentIncome() * loanToIncome(h.isFirstTimeBuyer());
-			approval.principal = Math.min(approval.principal, lti_principal);
+			principal = Math.min(principal, lti_principal);
 		} else {
 			// --- BTL ICR constraint
 			icr_principal = Model.rentalMarketStats.getExpAvFlowYield()*housePrice
                     /(interestCoverageRatio()*config.CENTRAL_BANK_BTL_STRESSED_INTEREST);
-			approval.principal = Math.min(approval.principal, icr_principal);
+			principal = Math.min(principal, icr_principal);
 		}
 		
-		approval.downPayment = housePrice - approval.principal;
+		downPayment = housePrice - principal;
 		
-		if(liquidWealth < approval.downPayment) {
-			System.out.println("Failed down-payment constraint: bank balance = " + liquidWealth + " Downpayment = "
-                    + approval.downPayment);
-			System.out.println("isHome = "+isHome+" isFirstTimeBuyer = "+h.isFirstTimeBuyer());
-			approval.downPayment = liquidWealth;
+		if(liquidWealth < downPayment) {
+			if(verbose) {
+				System.out.println("Failed down-payment constraint: bank balance = " + liquidWealth + " Downpayment = "
+						+ downPayment);
+				System.out.println("isHome = "+isHome+" isFirstTimeBuyer = "+h.isFirstTimeBuyer());
+			}
+			downPayment = liquidWealth;
 		}
 		// --- allow larger downpayments
 		if(desiredDownPayment < 0.0) desiredDownPayment = 0.0;
 		if(desiredDownPayment > liquidWealth) desiredDownPayment = liquidWealth;
 		if(desiredDownPayment > housePrice) desiredDownPayment = housePrice;
-		if(desiredDownPayment > approval.downPayment) {
-			approval.downPayment = desiredDownPayment;
-			approval.principal = housePrice - desiredDownPayment;
+		if(desiredDownPayment > downPayment) {
+			downPayment = desiredDownPayment;
+			principal = housePrice - desiredDownPayment;
 		}
-		
-		approval.monthlyPayment = approval.principal*monthlyPaymentFactor(isHome);		
-		approval.nPayments = config.derivedParams.N_PAYMENTS;
-		approval.monthlyInterestRate = r;
-		approval.purchasePrice = approval.principal + approval.downPayment;
 
-		return approval;
+		quote[QUOTE_PRINCIPAL] = principal;
+		quote[QUOTE_DOWN_PAYMENT] = downPayment;
+		quote[QUOTE_MONTHLY_PAYMENT] = principal*monthlyPaymentFactor(isHome);
+		quote[QUOTE_PURCHASE_PRICE] = principal + downPayment;
 	}
 
 
 	/*****************************************
 	 * Find the maximum mortgage that this mortgage-lender will approve
 	 * to a household.
+	 *
+	 * Quotes are cached per household, and a cached quote is reused as
+	 * long as it is from the same month, and neither the household's bank
+	 * balance, property income, employment income nor (for home quotes)
+	 * home equity have changed since. Any other input is covered by
+	 * quoteEpoch, which must be bumped (see invalidateQuotes) whenever one
+	 * of them changes: the interest rate and the monthly loan counters of
+	 * the bank, every loan issued (which also turns first-time buyers into
+	 * owner-occupiers), the national rental yield, recorded once per month,
+	 * and the central bank policy.
 	 * 
 	 * @param h household who is applying for the mortgage
 	 * @param isHome true if 'h' plans to live in the house
@@ -245,6 +389,46 @@ public class Bank implements Serializable {
 	 * to approve a mortgage for.
 	 ****************************************/
 	public double getMaxMortgage(Household h, boolean isHome) {
+		int i = 2*h.id + (isHome ? 0 : 1);
+		if(i >= cachedQuote.length) growQuoteCache(i + 1);
+		double homeEquity = isHome ? h.getHomeEquity() : 0.0;
+		if(cachedQuoteTime[i] == Model.getTime() && cachedQuoteEpoch[i] == quoteEpoch
+				&& cachedQuoteBankBalance[i] == h.getBankBalance()
+				&& cachedQuotePropertyIncome[i] == h.getMonthlyPropertyIncome()
+				&& cachedQuoteEmploymentIncome[i] == h.annualEmploymentIncome()
+				&& cachedQuoteHomeEquity[i] == homeEquity) {
+			return cachedQuote[i];
+		}
+		cachedQuoteTime[i] = Model.getTime();
+		cachedQuoteEpoch[i] = quoteEpoch;
+		cachedQuoteBankBalance[i] = h.getBankBalance();
+		cachedQuotePropertyIncome[i] = h.getMonthlyPropertyIncome();
+		cachedQuoteEmploymentIncome[i] = h.annualEmploymentIncome();
+		cachedQuoteHomeEquity[i] = homeEquity;
+		cachedQuote[i] = computeMaxMortgage(h, isHome);
+		return cachedQuote[i];
+	}
+
+	/*****************************************
+	 * Invalidate all cached quotes, to be called whenever an input to the
+	 * quotes that is not checked by getMaxMortgage changes
+	 ****************************************/
+	void invalidateQuotes() { quoteEpoch++; }
+
+	private void growQuoteCache(int minLength) {
+		int newLength = Math.max(minLength, 2*Model.householdRegistry.getCapacity());
+		int oldLength = cachedQuote.length;
+		cachedQuoteTime = Arrays.copyOf(cachedQuoteTime, newLength);
+		Arrays.fill(cachedQuoteTime, oldLength, newLength, -1);
+		cachedQuoteEpoch = Arrays.copyOf(cachedQuoteEpoch, newLength);
+		cachedQuoteBankBalance = Arrays.copyOf(cachedQuoteBankBalance, newLength);
+		cachedQuotePropertyIncome = Arrays.copyOf(cachedQuotePropertyIncome, newLength);
+		cachedQuoteEmploymentIncome = Arrays.copyOf(cachedQuoteEmploymentIncome, newLength);
+		cachedQuoteHomeEquity = Arrays.copyOf(cachedQuoteHomeEquity, newLength);
+		cachedQuote = Arrays.copyOf(cachedQuote, newLength);
+	}
+
+	private double computeMaxMortgage(Household h, boolean isHome) {
 		double max;
 		double pdi_max; // disposable income constraint
 		double lti_max; // loan to income constraint
@@ -47,6 +47,8 @@ public class CentralBank implements Serializable {
 		// Include the policy strategy code here:
 
 
+		// Mortgage quotes cached by the bank depend on the limits above
+		Model.bank.invalidateQuotes();
 	}
 	
 	public double loanToIncomeRegulation(boolean firstTimeBuyer) {
@@ -26,11 +26,14 @@ public class Config {
 
     // General model control parameters
     int SEED;                               // Seed for the random number generator
+    String RNG_ENGINE;                      // Random number generator engine, either XOSHIRO256 or MT19937
     int N_STEPS;				            // Simulation duration in time steps
     int TIME_TO_START_RECORDING;	        // Time steps before recording statistics (initialisation time)
     int N_SIMS; 					        // Number of simulations to run (monte-carlo)
+    boolean recordGeneral;                  // True to write general time series of household, market and credit statistics
     boolean recordCoreIndicators;		    // True to write time series for each core indicator
     boolean recordMicroData;			    // True to write micro data for each transaction made
+    boolean FAST_SAMPLERS;                  // True to draw normal variates with a ziggurat and Pdf samples from a fine table
 
     // House parameters
     public int N_QUALITY;                   // Number of quality bands for houses
@@ -49,6 +52,9 @@ public class Config {
     // Demographic parameters
     public int TARGET_POPULATION;           // Target number of households
     public double FUTURE_BIRTH_RATE;        // Future birth rate (births per year per capita), calibrated with flux of FTBs
+    boolean EVENT_DRIVEN_DEATHS;            // True to sample the month of death of each household at birth
+    boolean EQUILIBRIUM_INITIALISATION;     // True to start each simulation from a near-stationary population
+    int EQUILIBRIUM_PROFILE_SAMPLING_START; // Month from which to sample the population for an equilibrium profile (0 for no sampling)
 
     // Household parameters
     double RETURN_ON_FINANCIAL_WEALTH;      // Monthly percentage growth of financial investments
@@ -71,6 +77,7 @@ public class Config {
     double HPA_EXPECTATION_FACTOR;              // Weight assigned to current trend when computing expectations
     public int HPA_YEARS_TO_CHECK;              // Number of years of the HPI record to check when computing the annual HPA
     double HOLD_PERIOD;                         // Average period, in years, for which owner-occupiers hold their houses
+    boolean BATCH_DECISIONS;                    // True to evaluate the monthly decisions to sell and to buy-to-let region by region
     // Household behaviour parameters: sale price reduction
     double P_SALE_PRICE_REDUCE;             // Monthly probability of reducing the price of a house on the market
     double REDUCTION_MU;                    // Mean percentage reduction for prices of houses on the market
@@ -109,6 +116,8 @@ public class Config {
     double DECISION_TO_SELL_BETA;           // Weight of interest rate effect
     double DECISION_TO_SELL_HPC;            // TODO: fudge parameter, explicitly explained otherwise in the paper
     double DECISION_TO_SELL_INTEREST;       // TODO: fudge parameter, explicitly explained otherwise in the paper
+    boolean EVENT_DRIVEN_SELL_DECISIONS;    // True to only draw the decision to sell a home at geometrically distributed candidate months
+    boolean LAZY_DORMANT_HOUSEHOLDS;        // True to skip idle owner-occupiers until their next candidate month to sell
     // Household behaviour parameters: BTL buy/sell choice
     double BTL_CHOICE_INTENSITY;            // Shape parameter, or intensity of choice on effective yield
     double BTL_CHOICE_MIN_BANK_BALANCE;     // Minimun bank balance, as a percentage of the desired bank balance, to buy new properties
@@ -140,6 +149,8 @@ public class Config {
     // Collectors parameters
     double UK_HOUSEHOLDS;                       // Approximate number of households in UK, used to scale up results for core indicators
     boolean MORTGAGE_DIAGNOSTICS_ACTIVE;        // Whether to record mortgage statistics
+    int MEMORY_ACCOUNTING_PERIOD;               // Months between memory accounting reports (0 for no reports)
+    double MEMORY_BUDGET_FRACTION;              // Maximum fraction of the heap the projected footprint may take (0 for no check)
 
     /** Declaration of addresses **/        // They must be public to be accessed from data package
 
@@ -155,6 +166,7 @@ public class Config {
     public String DATA_HOUSEHOLD_AGE_AT_BIRTH_PDF;  // Address for pdf of household representative person's age at household birth
     public String DATA_DEATH_PROB_GIVEN_AGE;        // Address for data on the probability of death given the age of the household representative person
     public String DATA_REAL_POPULATION_PER_REGION;  // Address for data on real population per region
+    public String DATA_EQUILIBRIUM_PROFILE;         // Address for the equilibrium profile of the population
 
     /** Construction of objects to contain derived parameters and constants **/
 
@@ -249,6 +261,18 @@ public class Config {
         return P_INVESTOR;
     }
 
+    public double getConstructionHousesPerHousehold() {
+        return CONSTRUCTION_HOUSES_PER_HOUSEHOLD;
+    }
+
+    public int getMemoryAccountingPeriod() {
+        return MEMORY_ACCOUNTING_PERIOD;
+    }
+
+    public double getMemoryBudgetFraction() {
+        return MEMORY_BUDGET_FRACTION;
+    }
+
     /**
      * Method to read configuration parameters from a configuration (.properties) file
      * @param   configFileName    String with name of configuration (.properties) file (address inside source folder)
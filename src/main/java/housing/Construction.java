@@ -1,11 +1,11 @@
 package housing;
 
-import org.apache.commons.math3.random.MersenneTwister;
+import utilities.RandomEngine;
 
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 
 
 public class Construction implements IHouseOwner, Serializable {
@@ -20,9 +20,9 @@ public class Construction implements IHouseOwner, Serializable {
     private int                         nNewBuild; // Number of houses built this month
 
     private Config	                    config = Model.config; // Passes the Model's configuration parameters object to a private field
-    private MersenneTwister             rand = Model.rand; // Passes the Model's random number generator to a private field
+    private RandomEngine                rand = Model.rand; // Passes the Model's random number generator to a private field
     private ArrayList<Region>           geography;
-    private HashSet<House>              onMarket;
+    private LinkedHashSet<House>        onMarket; // In order of construction, so that offers are updated in the same order in every run
 
     //------------------------//
     //----- Constructors -----//
@@ -31,7 +31,7 @@ public class Construction implements IHouseOwner, Serializable {
 	public Construction(ArrayList<Region> geography) {
 	    this.geography = geography;
         nNewBuildPerRegion = new HashMap<>();
-        onMarket = new HashSet<>();
+        onMarket = new LinkedHashSet<>();
 	}
 
     //-------------------//
@@ -53,15 +53,8 @@ public class Construction implements IHouseOwner, Serializable {
         }
 	    // Then, for each region...
         for (Region region: geography) {
-            // ...compute target housing stock dependent on current and target population for the region
-            int targetStock;
-            if(region.households.size() < region.targetPopulation) {
-                targetStock = (int)(region.households.size()*config.CONSTRUCTION_HOUSES_PER_HOUSEHOLD);
-            } else {
-                targetStock = (int)(region.targetPopulation*config.CONSTRUCTION_HOUSES_PER_HOUSEHOLD);
-            }
-            // ...compute the shortfall of houses
-            int shortFall = targetStock - region.getHousingStock();
+            // ...compute the shortfall of houses with respect to the target housing stock for the region
+            int shortFall = getTargetStock(region) - region.getHousingStock();
             // ...if shortfall is positive...
             if (shortFall > 0) {
                 // ...add this regional shortfall to the number of houses built this month in the region and nationally
@@ -76,7 +69,7 @@ public class Construction implements IHouseOwner, Serializable {
             while(shortFall > 0) {
                 // ...create a new house with a random quality and with the construction sector as the owner
                 newHouse = new House(region, (int)(rand.nextDouble()*config.N_QUALITY));
-                newHouse.owner = this;
+                newHouse.setOwner(this);
                 // ...put the house for sale in the regional house sale market at the reference price for that quality
                 region.houseSaleMarket.offer(newHouse,
                         region.regionalHousingMarketStats.getReferencePriceForQuality(newHouse.getQuality()));
@@ -90,6 +83,32 @@ public class Construction implements IHouseOwner, Serializable {
         }
 	}
 
+    /**
+     * @param region Region for which to compute the target housing stock
+     * @return Target housing stock, dependent on current and target population for the region
+     */
+    int getTargetStock(Region region) {
+        if(region.households.size() < region.targetPopulation) {
+            return (int)(region.households.size()*config.CONSTRUCTION_HOUSES_PER_HOUSEHOLD);
+        } else {
+            return (int)(region.targetPopulation*config.CONSTRUCTION_HOUSES_PER_HOUSEHOLD);
+        }
+    }
+
+    /**
+     * Count in the housing stock a house already built at the start of a simulation that begins from a stationary
+     * population (see EquilibriumInitialiser)
+     *
+     * @param region Region where the house sits
+     * @param quality Quality band of the house
+     * @return The new house, still without an owner
+     */
+    House newInitialHouse(Region region, int quality) {
+        region.increaseHousingStock();
+        ++housingStock;
+        return new House(region, quality);
+    }
+
 	@Override
 	public void completeHouseSale(HouseSaleRecord sale) { onMarket.remove(sale.house); }
 
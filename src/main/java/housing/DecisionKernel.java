@@ -0,0 +1,250 @@
+package housing;
+
+import java.util.Arrays;
+
+import utilities.RandomEngine;
+
+/**************************************************************************************************
+ * Class to evaluate the monthly decisions to sell a home, to sell an investment property and to
+ * buy a new buy-to-let property for all the households of a region in one go, instead of one
+ * household at a time. The inputs of each decision are first gathered into primitive arrays, the
+ * probabilities are then computed in tight loops over these arrays, and the outcomes are finally
+ * drawn and stored in arrays indexed by house id (sell decisions) or household id (buy-to-let
+ * decisions), where the households pick them up during their decision step.
+ *
+ * The equations are shared with HouseholdBehaviour through its static helpers, but all decisions
+ * in a region are taken with the market state at the start of the decision step of the region
+ * (for example, the number of houses on the market that enters the decision to sell a home does
+ * not increase as earlier households put their houses up for sale), and random numbers are drawn
+ * in a different order.
+ *
+ *************************************************************************************************/
+class DecisionKernel {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private Config                  config = Model.config; // Passes the Model's configuration parameters object to a private field
+    private RandomEngine            rand = Model.rand; // Passes the Model's random number generator to a private field
+
+    // Decision outcomes, only valid if their time stamp equals the current time
+    private int []                  sellTime = new int[0]; // Time of the decision to sell, per house id
+    private boolean []              sell = new boolean[0]; // Decision to sell, per house id
+    private int []                  buyToLetTime = new int[0]; // Time of the decision to buy-to-let, per household id
+    private boolean []              buyToLet = new boolean[0]; // Decision to buy-to-let, per household id
+
+    // Batch of investment properties whose sale is to be decided
+    private int                     nInvestments;
+    private int []                  investmentId = new int[16]; // House id
+    private double []               marketPrice = new double[16]; // Average sale price for the quality of the house
+    private double []               principal = new double[16]; // Principal left on the mortgage of the house
+    private double []               rent = new double[16]; // Rent asked for the house on the rental market
+    private double []               mortgagePayment = new double[16]; // Next monthly payment on the mortgage of the house
+    private double []               investmentCapGainCoeff = new double[16]; // Cap gain coefficient of the owner
+
+    // Batch of investors whose buy-to-let purchase is to be decided
+    private int                     nInvestors;
+    private int []                  investorId = new int[16]; // Household id
+    private double []               purchasePrice = new double[16]; // Purchase price of the maximum leverage mortgage
+    private double []               downPayment = new double[16]; // Down payment of the maximum leverage mortgage
+    private double []               monthlyPayment = new double[16]; // Monthly payment of the maximum leverage mortgage
+    private double []               investorCapGainCoeff = new double[16]; // Cap gain coefficient of the investor
+
+    private double []               probability = new double[16]; // Probabilities computed for the current batch
+    private double []               uniform = new double[16]; // Random numbers drawn in bulk for the current batch
+    private double []               quote = new double[Bank.QUOTE_SIZE]; // Scratch space for mortgage quotes
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Forget all decisions (to be called at the beginning of each simulation, as time starts again from zero)
+     */
+    void init() {
+        Arrays.fill(sellTime, -1);
+        Arrays.fill(buyToLetTime, -1);
+    }
+
+    /**
+     * Evaluate the decisions to sell and to buy-to-let of all households in the region, to be called after the
+     * households have updated their finances for the month and before they make their decisions
+     *
+     * @param region Region whose households are to decide
+     */
+    void evaluate(Region region) {
+        int t = Model.getTime();
+        if (sell.length < Model.houseRegistry.getCapacity()) {
+            int n = Math.max(Model.houseRegistry.getCapacity(), 2*sell.length);
+            int oldLength = sell.length;
+            sellTime = Arrays.copyOf(sellTime, n);
+            Arrays.fill(sellTime, oldLength, n, -1);
+            sell = Arrays.copyOf(sell, n);
+        }
+        if (buyToLet.length < Model.householdRegistry.getCapacity()) {
+            int n = Math.max(Model.householdRegistry.getCapacity(), 2*buyToLet.length);
+            int oldLength = buyToLet.length;
+            buyToLetTime = Arrays.copyOf(buyToLetTime, n);
+            Arrays.fill(buyToLetTime, oldLength, n, -1);
+            buyToLet = Arrays.copyOf(buyToLet, n);
+        }
+        nInvestments = 0;
+        nInvestors = 0;
+        // Region-wide inputs
+        double hpaExpectation = region.regionalHousingMarketStats.getLongTermHPA()*config.HPA_EXPECTATION_FACTOR;
+        double longTermFlowYield = region.regionalRentalMarketStats.getLongTermExpAvFlowYield();
+        double flowYield = region.regionalRentalMarketStats.getExpAvFlowYield();
+        double minPrice = region.regionalHousingMarketStats.getExpAvSalePriceForQuality(0);
+        double btlMinBankBalance = config.BTL_CHOICE_MIN_BANK_BALANCE;
+
+        // Gather the inputs of every decision, settling directly those decided without any random draw
+        for (Household h : (region.activeHouseholds != null) ? region.activeHouseholds : region.households) {
+            boolean isInvestor = h.behaviour.isPropertyInvestor();
+            for (House house : h.getHousePayments().keySet()) {
+                if (house.owner != h || house.getSaleRecord() != null) continue;
+                if (house == h.getHome()) {
+                    if (isInvestor) {
+                        setSell(house, false, t);
+                    } else if (config.EVENT_DRIVEN_SELL_DECISIONS) {
+                        continue; // Left to the household, which only draws at its candidate months
+                    } else {
+                        // Owner-occupiers, decided straight away, as the probability is the same for all of them
+                        setSell(house, rand.nextDouble() < HouseholdBehaviour.sellHomeProbability(
+                                house.region.houseSaleMarket.getnHousesOnMarket(), house.region.households.size(),
+                                Model.bank.getMortgageInterestRate()), t);
+                    }
+                } else if (h.nInvestmentProperties() < 2 || !house.isOnRentalMarket()) {
+                    setSell(house, false, t);
+                } else {
+                    addInvestment(house, h);
+                }
+            }
+            // Only investors living in their own home decide whether to buy a new buy-to-let property
+            if (isInvestor && h.isHomeowner()) {
+                if (h.nInvestmentProperties() < 1) {
+                    setBuyToLet(h, true, t);
+                } else if (h.getBankBalance() < h.behaviour.getDesiredBankBalance(h)*btlMinBankBalance) {
+                    setBuyToLet(h, false, t);
+                } else {
+                    double maxPrice = Model.bank.getMaxMortgage(h, false);
+                    if (maxPrice < minPrice) {
+                        setBuyToLet(h, false, t);
+                    } else {
+                        Model.bank.quoteMortgage(h, maxPrice, 0.0, false, quote);
+                        addInvestor(h);
+                    }
+                }
+            }
+        }
+
+        // Probabilities of selling each investment property...
+        ensureProbabilityCapacity(nInvestments);
+        for (int i = 0; i < nInvestments; i++) {
+            double c = investmentCapGainCoeff[i];
+            double equity = Math.max(0.01, marketPrice[i] - principal[i]); // Dummy security parameter to avoid dividing by zero
+            double leverage = marketPrice[i]/equity;
+            double rentalYield = rent[i]*config.constants.MONTHS_IN_YEAR/marketPrice[i];
+            double mortgageRate = mortgagePayment[i]*config.constants.MONTHS_IN_YEAR/equity;
+            double effectiveYield = HouseholdBehaviour.btlEffectiveYield(leverage, rentalYield, mortgageRate, c,
+                    longTermFlowYield, hpaExpectation);
+            probability[i] = 1.0 - HouseholdBehaviour.btlMonthlyChoiceProbability(effectiveYield);
+        }
+        // ...and draw the decisions
+        rand.nextDoubles(uniform, nInvestments);
+        for (int i = 0; i < nInvestments; i++) {
+            sellTime[investmentId[i]] = t;
+            sell[investmentId[i]] = uniform[i] < probability[i];
+        }
+
+        // Probabilities of buying a new buy-to-let property for each investor...
+        ensureProbabilityCapacity(nInvestors);
+        for (int i = 0; i < nInvestors; i++) {
+            double c = investorCapGainCoeff[i];
+            double leverage = purchasePrice[i]/downPayment[i];
+            double mortgageRate = monthlyPayment[i]*config.constants.MONTHS_IN_YEAR/downPayment[i];
+            double effectiveYield = HouseholdBehaviour.btlEffectiveYield(leverage, flowYield, mortgageRate, c,
+                    longTermFlowYield, hpaExpectation);
+            probability[i] = HouseholdBehaviour.btlMonthlyChoiceProbability(effectiveYield);
+        }
+        // ...and draw the decisions
+        rand.nextDoubles(uniform, nInvestors);
+        for (int i = 0; i < nInvestors; i++) {
+            buyToLetTime[investorId[i]] = t;
+            buyToLet[investorId[i]] = uniform[i] < probability[i];
+        }
+    }
+
+    private void setSell(House house, boolean decision, int t) {
+        sellTime[house.id] = t;
+        sell[house.id] = decision;
+    }
+
+    private void setBuyToLet(Household h, boolean decision, int t) {
+        buyToLetTime[h.id] = t;
+        buyToLet[h.id] = decision;
+    }
+
+    private void addInvestment(House house, Household owner) {
+        if (nInvestments == investmentId.length) {
+            int n = 2*nInvestments;
+            investmentId = Arrays.copyOf(investmentId, n);
+            marketPrice = Arrays.copyOf(marketPrice, n);
+            principal = Arrays.copyOf(principal, n);
+            rent = Arrays.copyOf(rent, n);
+            mortgagePayment = Arrays.copyOf(mortgagePayment, n);
+            investmentCapGainCoeff = Arrays.copyOf(investmentCapGainCoeff, n);
+        }
+        MortgageAgreement mortgage = owner.mortgageFor(house);
+        investmentId[nInvestments] = house.id;
+        marketPrice[nInvestments] = house.region.regionalHousingMarketStats.getExpAvSalePriceForQuality(
+                house.getQuality());
+        principal[nInvestments] = mortgage.getPrincipal();
+        rent[nInvestments] = house.getRentalRecord().getPrice();
+        mortgagePayment[nInvestments] = mortgage.nextPayment();
+        investmentCapGainCoeff[nInvestments] = owner.behaviour.getBTLCapGainCoefficient();
+        nInvestments++;
+    }
+
+    private void addInvestor(Household h) {
+        if (nInvestors == investorId.length) {
+            int n = 2*nInvestors;
+            investorId = Arrays.copyOf(investorId, n);
+            purchasePrice = Arrays.copyOf(purchasePrice, n);
+            downPayment = Arrays.copyOf(downPayment, n);
+            monthlyPayment = Arrays.copyOf(monthlyPayment, n);
+            investorCapGainCoeff = Arrays.copyOf(investorCapGainCoeff, n);
+        }
+        investorId[nInvestors] = h.id;
+        purchasePrice[nInvestors] = quote[Bank.QUOTE_PURCHASE_PRICE];
+        downPayment[nInvestors] = quote[Bank.QUOTE_DOWN_PAYMENT];
+        monthlyPayment[nInvestors] = quote[Bank.QUOTE_MONTHLY_PAYMENT];
+        investorCapGainCoeff[nInvestors] = h.behaviour.getBTLCapGainCoefficient();
+        nInvestors++;
+    }
+
+    private void ensureProbabilityCapacity(int n) {
+        if (probability.length < n) {
+            probability = new double[Math.max(n, 2*probability.length)];
+            uniform = new double[probability.length];
+        }
+    }
+
+    //----- Getter/setter methods -----//
+
+    /**
+     * @return True if the decision whether to sell this house has been evaluated for the current month
+     */
+    boolean hasSellDecision(House house) { return house.id < sell.length && sellTime[house.id] == Model.getTime(); }
+
+    boolean getSellDecision(House house) { return sell[house.id]; }
+
+    /**
+     * @return True if the decision whether to buy a new buy-to-let property has been evaluated for the current month
+     */
+    boolean hasBuyToLetDecision(Household h) {
+        return h.id < buyToLet.length && buyToLetTime[h.id] == Model.getTime();
+    }
+
+    boolean getBuyToLetDecision(Household h) { return buyToLet[h.id]; }
+}
@@ -1,9 +1,8 @@
 package housing;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 
-import org.apache.commons.math3.random.MersenneTwister;
+import utilities.RandomEngine;
 
 public class Demographics {
 
@@ -11,10 +10,15 @@ public class Demographics {
 	//----- Fields -----//
 	//------------------//
 
-	private Config	            config = Model.config; // Passes the Model's configuration parameters object to a private field
-	private MersenneTwister     rand = Model.rand; // Passes the Model's random number generator to a private field
-    private ArrayList<Region>   geography;
-    private int                 totalPopulation;
+    // TODO: ATTENTION ---> fudge parameter so that population approaches the target value
+    //double multFactor = (double)region.households.size()/region.getTargetPopulation();
+    private static final double     MULT_FACTOR = 0.05;
+
+	private Config	                config = Model.config; // Passes the Model's configuration parameters object to a private field
+	private RandomEngine            rand = Model.rand; // Passes the Model's random number generator to a private field
+    private ArrayList<Region>       geography;
+    private int                     totalPopulation;
+    private ArrayList<Household>    dueDeaths = new ArrayList<>(); // Households scheduled to die this month
 
     //------------------------//
     //----- Constructors -----//
@@ -49,32 +53,283 @@ public class Demographics {
         for (Region region: geography) {
             // Birth: Add households in proportion to target population and monthly birth rate of first-time-buyers
             // TODO: Shouldn't this include also new renters? Review the whole method...
-            int nBirths = (int)(region.getTargetPopulation()*config.FUTURE_BIRTH_RATE/config.constants.MONTHS_IN_YEAR
-                    + 0.5);
+            int nBirths = monthlyBirths(region);
             while(nBirths-- > 0) {
-                region.households.add(new Household(data.Demographics.pdfHouseholdAgeAtBirth.nextDouble(), region));
-                totalPopulation++;
+                addHousehold(new Household(sampleAgeAtBirth(), region), region);
             }
             // Death: Kill households with a probability dependent on their age and organise inheritance
-            double pDeath;
-            // TODO: ATTENTION ---> fudge parameter so that population approaches the target value
-            //double multFactor = (double)region.households.size()/region.getTargetPopulation();
-            double multFactor = 0.05;
-            Iterator<Household> iterator = region.households.iterator();
-            while(iterator.hasNext()) {
-                Household h = iterator.next();
-                pDeath = data.Demographics.probDeathGivenAge(h.getAge())/config.constants.MONTHS_IN_YEAR;
-                if(rand.nextDouble() < pDeath*multFactor) {
-                    iterator.remove();
-                    totalPopulation--;
-                    // Inheritance
-                    // TODO: This imposes inheritance within the same region!!!
-                    h.transferAllWealthTo(region.households.get(rand.nextInt(region.households.size())));
-                }
+            if (config.EVENT_DRIVEN_DEATHS) {
+                killScheduledHouseholds(region);
+            } else {
+                killHouseholds(region);
             }
         }
 	}
 
+    /**
+     * @param region Region whose births are to be counted
+     * @return Number of households born in the region every month
+     */
+    private int monthlyBirths(Region region) {
+        return (int)(region.getTargetPopulation()*config.FUTURE_BIRTH_RATE/config.constants.MONTHS_IN_YEAR + 0.5);
+    }
+
+    private double sampleAgeAtBirth() {
+        return config.FAST_SAMPLERS ? data.Demographics.pdfHouseholdAgeAtBirth.nextDoubleFast()
+                : data.Demographics.pdfHouseholdAgeAtBirth.nextDouble();
+    }
+
+    /**
+     * Add a household to the population of a region, scheduling its death if deaths are event-driven
+     *
+     * @param h Household to add, either newborn or, at the start of a simulation, of any age
+     * @param region Region where the household lives
+     */
+    private void addHousehold(Household h, Region region) {
+        h.regionIndex = region.households.size();
+        region.households.add(h);
+        h.addToRegionalStats();
+        if (region.activeHouseholds != null) region.activeHouseholds.add(h);
+        totalPopulation++;
+        if (config.EVENT_DRIVEN_DEATHS) region.deathQueue.schedule(sampleTimeOfDeath(h.getAge()), h);
+    }
+
+    /**
+     * Add to a region, at the start of a simulation, the population it would hold in the stationary state given its
+     * number of births per month. Each household is born as any other household, with its age at birth, income
+     * percentile, investor gene and desired bank balance drawn as usual, and then aged by a number of months drawn with
+     * weights proportional to the probability of surviving the monthly death tests for that long
+     *
+     * @param region Region to populate
+     * @return List of the households added
+     */
+    ArrayList<Household> addStationaryPopulation(Region region) {
+        int nHouseholds = (int)(monthlyBirths(region)*meanMonthsAlive() + 0.5);
+        ArrayList<Household> population = new ArrayList<>(nHouseholds);
+        while (population.size() < nHouseholds) {
+            double ageAtBirth = sampleAgeAtBirth();
+            Household h = new Household(ageAtBirth, region);
+            h.ageTo(ageAtBirth + sampleMonthsAlive(ageAtBirth)/config.constants.MONTHS_IN_YEAR);
+            addHousehold(h, region);
+            population.add(h);
+        }
+        return population;
+    }
+
+    /**
+     * Fill the monthly death probabilities and the number of death tests taken within each age band by a household
+     * born at a given age, from its first test (the month of its birth) on. As in sampleTimeOfDeath, the last band
+     * takes all tests beyond the age bands of the data
+     *
+     * @param ageAtBirth Age of the household representative person at birth
+     * @param pDeath Array of (number of age bands + 1) elements to write the monthly death probabilities to
+     * @param nTests Array of (number of age bands + 1) elements to write the number of tests within each band to
+     */
+    private void fillDeathTestsPerBand(double ageAtBirth, double [] pDeath, int [] nTests) {
+        double [][] bands = data.Demographics.probDeathGivenAgeData;
+        int month = 0; // First month (counting from birth) within the current age band
+        for (int i = 0; i <= bands.length; i++) {
+            int endMonth; // First month beyond the current age band
+            if (i < bands.length) {
+                pDeath[i] = bands[i][2];
+                endMonth = (ageAtBirth >= bands[i][1]) ? month : Math.max(month,
+                        (int)Math.ceil((bands[i][1] - ageAtBirth)*config.constants.MONTHS_IN_YEAR));
+            } else {
+                pDeath[i] = config.constants.MONTHS_IN_YEAR;
+                endMonth = Integer.MAX_VALUE;
+            }
+            pDeath[i] = Math.min(1.0, pDeath[i]*MULT_FACTOR/config.constants.MONTHS_IN_YEAR);
+            nTests[i] = endMonth - month;
+            month = endMonth;
+        }
+    }
+
+    /**
+     * Expected number of households alive at any given month per household born every month, i.e., the mean over the
+     * distribution of ages at birth of the expected number of months each household is alive (that is, of death tests
+     * survived)
+     *
+     * @return Mean number of months alive of a newborn household
+     */
+    private double meanMonthsAlive() {
+        int nAgesAtBirth = 800; // Quantiles of the distribution of ages at birth to average over
+        double [] pDeath = new double[data.Demographics.probDeathGivenAgeData.length + 1];
+        int [] nTests = new int[pDeath.length];
+        double sum = 0.0;
+        for (int j = 0; j < nAgesAtBirth; j++) {
+            fillDeathTestsPerBand(data.Demographics.pdfHouseholdAgeAtBirth.inverseCumulativeProbability(
+                    (j + 0.5)/nAgesAtBirth), pDeath, nTests);
+            double survival = 1.0; // Probability of surviving all tests before the current band
+            for (int i = 0; i < pDeath.length; i++) {
+                sum += monthsAliveInBand(survival, pDeath[i], nTests[i]);
+                survival *= survivalInBand(pDeath[i], nTests[i]);
+            }
+        }
+        return sum/nAgesAtBirth;
+    }
+
+    /**
+     * Sample the number of months a household born at a given age has been alive at the start of a simulation that
+     * begins from a stationary population, i.e., the number of death tests it has survived so far, with probability
+     * proportional to the probability of surviving that many tests. The band where the cumulative weight reaches a
+     * uniform fraction of the total is found first, and the geometric weights are then inverted within the band
+     *
+     * @param ageAtBirth Age of the household representative person at birth
+     * @return Number of months alive, at least one
+     */
+    private int sampleMonthsAlive(double ageAtBirth) {
+        double [] pDeath = new double[data.Demographics.probDeathGivenAgeData.length + 1];
+        int [] nTests = new int[pDeath.length];
+        fillDeathTestsPerBand(ageAtBirth, pDeath, nTests);
+        double total = 0.0;
+        double survival = 1.0;
+        for (int i = 0; i < pDeath.length; i++) {
+            total += monthsAliveInBand(survival, pDeath[i], nTests[i]);
+            survival *= survivalInBand(pDeath[i], nTests[i]);
+        }
+        double weightLeft = rand.nextDouble()*total;
+        int month = 0; // First month (counting from birth) within the current age band
+        survival = 1.0;
+        for (int i = 0; i < pDeath.length; i++) {
+            double bandWeight = monthsAliveInBand(survival, pDeath[i], nTests[i]);
+            if (weightLeft < bandWeight || i == pDeath.length - 1) {
+                // Smallest number of months k into the band such that the weight of months 1 to k exceeds weightLeft,
+                // where the weight of month k is survival*(1 - p)^k
+                double q = 1.0 - pDeath[i];
+                double k;
+                if (pDeath[i] == 0.0) {
+                    k = Math.floor(weightLeft/survival) + 1.0;
+                } else if (q == 0.0) {
+                    k = 1.0;
+                } else {
+                    double fraction = Math.min(weightLeft*pDeath[i]/(survival*q), 1.0 - 1e-15); // Capped against rounding
+                    k = Math.max(1.0, Math.ceil(Math.log1p(-fraction)/Math.log(q)));
+                }
+                return month + (int)Math.min(k, nTests[i]);
+            }
+            weightLeft -= bandWeight;
+            survival *= survivalInBand(pDeath[i], nTests[i]);
+            month += nTests[i];
+        }
+        return month; // Not reached, as the last band takes all the remaining weight
+    }
+
+    /**
+     * @return Expected number of tests survived within an age band with monthly death probability pDeath and nTests
+     * tests, given a probability survival of reaching the band, as a sum of survival*(1 - pDeath)^k for k = 1 to nTests
+     */
+    private static double monthsAliveInBand(double survival, double pDeath, int nTests) {
+        if (pDeath == 0.0) return survival*nTests;
+        return survival*(1.0 - pDeath)*(1.0 - survivalInBand(pDeath, nTests))/pDeath;
+    }
+
+    /**
+     * @return Probability of surviving all nTests tests of an age band with monthly death probability pDeath
+     */
+    private static double survivalInBand(double pDeath, int nTests) {
+        if (pDeath == 0.0) return 1.0;
+        return (nTests == Integer.MAX_VALUE) ? 0.0 : Math.pow(1.0 - pDeath, nTests);
+    }
+
+    /**
+     * Draw a death test for every household in the region and remove those that die
+     *
+     * @param region Region whose households are to be tested
+     */
+    private void killHouseholds(Region region) {
+        double pDeath;
+        // Single compaction sweep: survivors are moved down to the front of the list as it is traversed, so that
+        // removing dead households costs O(n) in total instead of O(n) per death
+        ArrayList<Household> households = region.households;
+        int n = households.size();
+        int nSurvivors = 0; // Survivors so far, stored at positions [0, nSurvivors)
+        for (int i = 0; i < n; i++) {
+            Household h = households.get(i);
+            pDeath = data.Demographics.probDeathGivenAge(h.getAge())/config.constants.MONTHS_IN_YEAR;
+            if(rand.nextDouble() < pDeath*MULT_FACTOR) {
+                totalPopulation--;
+                h.removeFromRegionalStats();
+                // Inheritance: the beneficiary is chosen uniformly among all households still alive, i.e., both
+                // survivors so far and households yet to be checked, exactly as if h had been removed from the list
+                // TODO: This imposes inheritance within the same region!!!
+                int k = rand.nextInt(nSurvivors + n - i - 1);
+                h.transferAllWealthTo(households.get((k < nSurvivors) ? k : i + 1 + k - nSurvivors));
+                Model.householdRegistry.release(h.id, h);
+            } else {
+                h.regionIndex = nSurvivors;
+                households.set(nSurvivors++, h);
+            }
+        }
+        households.subList(nSurvivors, n).clear();
+    }
+
+    /**
+     * Remove the households of the region scheduled to die this month. Each one is replaced, in the households list, by
+     * the last household of the list, so that removing it is O(1)
+     *
+     * @param region Region whose scheduled deaths are to be processed
+     */
+    private void killScheduledHouseholds(Region region) {
+        ArrayList<Household> households = region.households;
+        dueDeaths.clear();
+        region.deathQueue.collectDue(Model.getTime(), dueDeaths);
+        for (Household h : dueDeaths) {
+            totalPopulation--;
+            h.removeFromRegionalStats();
+            Household last = households.remove(households.size() - 1);
+            if (last != h) {
+                last.regionIndex = h.regionIndex;
+                households.set(h.regionIndex, last);
+            }
+            // Inheritance: the beneficiary is chosen uniformly among all households still alive
+            // TODO: This imposes inheritance within the same region!!!
+            if (!households.isEmpty()) {
+                h.transferAllWealthTo(households.get(rand.nextInt(households.size())));
+            } else {
+                System.out.println("Strange: last household of the region died, its wealth is lost");
+            }
+            Model.householdRegistry.release(h.id, h);
+        }
+        dueDeaths.clear();
+    }
+
+    /**
+     * Sample the time of death of a household being born this month, from the same monthly death probabilities used by
+     * the monthly death tests. As these probabilities are constant within age bands, the cumulative hazard is
+     * piecewise linear in time, and a single exponential variate is enough to find the month of death band by band
+     *
+     * @param ageAtBirth Age of the household representative person at birth
+     * @return Time (month) at which the household dies
+     */
+    private int sampleTimeOfDeath(double ageAtBirth) {
+        double [][] bands = data.Demographics.probDeathGivenAgeData;
+        double hazardLeft = -Math.log(1.0 - rand.nextDouble()); // Cumulative hazard the household survives
+        int month = 0; // First month (counting from birth) within the current age band
+        for (int i = 0; i <= bands.length; i++) {
+            double pDeath;
+            int endMonth; // First month beyond the current age band
+            if (i < bands.length) {
+                if (ageAtBirth >= bands[i][1]) continue;
+                pDeath = bands[i][2];
+                endMonth = Math.max(month,
+                        (int)Math.ceil((bands[i][1] - ageAtBirth)*config.constants.MONTHS_IN_YEAR));
+            } else {
+                pDeath = config.constants.MONTHS_IN_YEAR;
+                endMonth = Integer.MAX_VALUE;
+            }
+            pDeath *= MULT_FACTOR/config.constants.MONTHS_IN_YEAR;
+            if (pDeath > 0.0) {
+                // Monthly hazard, infinite if death is certain
+                double hazard = (pDeath < 1.0) ? -Math.log1p(-pDeath) : Double.POSITIVE_INFINITY;
+                double monthsToDeath = Math.max(1.0, Math.ceil(hazardLeft/hazard));
+                if (monthsToDeath <= endMonth - month) return Model.getTime() + month + (int)monthsToDeath - 1;
+                hazardLeft -= hazard*(endMonth - month);
+            }
+            month = endMonth;
+        }
+        return Integer.MAX_VALUE; // Not reached, as death is certain in the last band
+    }
+
     //----- Getter/setter methods -----//
 
     public int getTotalPopulation() { return totalPopulation; }
@@ -0,0 +1,381 @@
+package housing;
+
+import collectors.RegionalHousingMarketStats;
+import collectors.RegionalRentalMarketStats;
+import data.EquilibriumProfile;
+import utilities.RandomEngine;
+import utilities.ZigguratGaussian;
+
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**************************************************************************************************
+ * Class to start simulations from a near-stationary state, instead of from an empty model that
+ * needs hundreds of months of births, construction and market activity before its housing stock,
+ * tenure mix and wealth distribution settle.
+ *
+ * Each region is given the population it would hold in the stationary state, with ages drawn from
+ * the stationary age distribution implied by the age at birth and death probabilities of the
+ * demographics data, and incomes from the lifecycle data, as for any newborn household. Tenure,
+ * bank balances, houses owned apart from the home and mortgage debt are then drawn, for each
+ * household, from the cell of the equilibrium profile of its age band, income quartile and investor
+ * gene. Homes are matched to homeowners, and rented houses to renters, by rank of quality and
+ * income, as richer households tend to end up in better houses. Houses owned by investors are let
+ * to renters with tenancies already running, while any left empty, as well as the other houses of
+ * non-investors, are put on the market. Price, rent and interest rate statistics start from the
+ * levels of the profile, as if these had been steady for a long time.
+ *
+ * Besides, the population of a running simulation can be sampled once a year, from month
+ * EQUILIBRIUM_PROFILE_SAMPLING_START on, to write an equilibrium profile at the end of the
+ * simulation, in the format read by data.EquilibriumProfile.
+ *
+ *************************************************************************************************/
+public class EquilibriumInitialiser {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private Config	                config = Model.config; // Passes the Model's configuration parameters object to a private field
+    private RandomEngine            rand = Model.rand; // Passes the Model's random number generator to a private field
+    private ArrayList<Region>       geography;
+    private String                  outputFolderCopy;
+    private double [][]             sampledCells; // Sums over all the households sampled in each cell of the profile
+    private double []               sampledMarketLevels; // Sums of the market levels over all samples
+    private double [][]             sampledQualityBands; // Sums of the averages of each quality band over all samples
+    private int                     nSamples;
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    /**
+     * @param geography Geography of regions to populate or sample
+     * @param outputFolder Folder where to write the sampled equilibrium profiles
+     */
+    EquilibriumInitialiser(ArrayList<Region> geography, String outputFolder) {
+        this.geography = geography;
+        outputFolderCopy = outputFolder;
+        sampledCells = new double[EquilibriumProfile.N_CELLS][EquilibriumProfile.N_COLUMNS];
+        sampledMarketLevels = new double[EquilibriumProfile.N_MARKET_LEVELS];
+        sampledQualityBands = new double[EquilibriumProfile.N_QUALITY_COLUMNS][config.N_QUALITY];
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Clear the samples of the equilibrium profile (to be called at the beginning of each simulation)
+     */
+    void init() {
+        for (double [] cell : sampledCells) Arrays.fill(cell, 0.0);
+        Arrays.fill(sampledMarketLevels, 0.0);
+        for (double [] column : sampledQualityBands) Arrays.fill(column, 0.0);
+        nSamples = 0;
+    }
+
+    //----- Initialisation from the equilibrium profile -----//
+
+    /**
+     * Set the market statistics and the mortgage interest rate to the levels of the profile and populate every region,
+     * to be called once all regions, markets and statistics have been initialised
+     */
+    void populate() {
+        double [] levels = EquilibriumProfile.marketLevels;
+        double [][] bands = EquilibriumProfile.qualityBands;
+        Model.bank.setMortgageInterestRate(levels[EquilibriumProfile.MORTGAGE_INTEREST_RATE]);
+        Model.housingMarketStats.setInitialPrices(levels[EquilibriumProfile.SALE_HPI],
+                bands[EquilibriumProfile.SALE_PRICE], levels[EquilibriumProfile.SALE_DAYS_ON_MARKET]);
+        Model.rentalMarketStats.setInitialPrices(levels[EquilibriumProfile.RENTAL_HPI],
+                bands[EquilibriumProfile.RENT], levels[EquilibriumProfile.RENTAL_DAYS_ON_MARKET]);
+        Model.rentalMarketStats.setInitialRentalStats(levels[EquilibriumProfile.RENTAL_FLOW_YIELD],
+                bands[EquilibriumProfile.RENTAL_MONTHS_ON_MARKET], bands[EquilibriumProfile.RENTAL_OCCUPANCY],
+                bands[EquilibriumProfile.RENTAL_FLOW_YIELD_OF_QUALITY]);
+        for (Region region : geography) {
+            region.regionalHousingMarketStats.setInitialPrices(levels[EquilibriumProfile.SALE_HPI],
+                    bands[EquilibriumProfile.SALE_PRICE], levels[EquilibriumProfile.SALE_DAYS_ON_MARKET]);
+            region.regionalRentalMarketStats.setInitialPrices(levels[EquilibriumProfile.RENTAL_HPI],
+                    bands[EquilibriumProfile.RENT], levels[EquilibriumProfile.RENTAL_DAYS_ON_MARKET]);
+            region.regionalRentalMarketStats.setInitialRentalStats(levels[EquilibriumProfile.RENTAL_FLOW_YIELD],
+                    bands[EquilibriumProfile.RENTAL_MONTHS_ON_MARKET], bands[EquilibriumProfile.RENTAL_OCCUPANCY],
+                    bands[EquilibriumProfile.RENTAL_FLOW_YIELD_OF_QUALITY]);
+            populate(region);
+        }
+    }
+
+    private void populate(Region region) {
+        ArrayList<Household> homeowners = new ArrayList<>();
+        ArrayList<Household> renters = new ArrayList<>();
+        ArrayList<House> lettings = new ArrayList<>();
+        // Draw the tenure and bank balance of each household of the stationary population
+        for (Household h : Model.demographics.addStationaryPopulation(region)) {
+            int cell = cellOf(h);
+            double x = rand.nextDouble();
+            double pHomeowner = EquilibriumProfile.mean(cell, EquilibriumProfile.HOMEOWNERS,
+                    EquilibriumProfile.HOUSEHOLDS, 0.0);
+            int tenure;
+            if (x < pHomeowner) {
+                homeowners.add(h);
+                tenure = EquilibriumProfile.HOMEOWNERS;
+            } else if (x < pHomeowner + EquilibriumProfile.mean(cell, EquilibriumProfile.RENTERS,
+                    EquilibriumProfile.HOUSEHOLDS, 0.0)) {
+                renters.add(h);
+                tenure = EquilibriumProfile.RENTERS;
+            } else {
+                tenure = EquilibriumProfile.IN_SOCIAL_HOUSING;
+            }
+            // Bank balances are either one (as for households with no savings) or log-normal, with the fraction of
+            // households with savings and the log-normal parameters of the cell and tenure. Households of a cell and
+            // tenure never sampled keep their desired bank balance
+            if (EquilibriumProfile.cells[cell][tenure] > 0.0) {
+                int saving = EquilibriumProfile.savingColumn(tenure);
+                if (rand.nextDouble() < EquilibriumProfile.mean(cell, saving, tenure, 0.0)) {
+                    double mu = EquilibriumProfile.mean(cell, saving + 1, saving, 0.0);
+                    double sigma = Math.sqrt(Math.max(0.0, EquilibriumProfile.mean(cell, saving + 2, saving, 0.0)
+                            - mu*mu));
+                    h.setInitialBankBalance(Math.exp(mu + sigma*nextGaussian()));
+                } else {
+                    h.setInitialBankBalance(1.0);
+                }
+            }
+        }
+        // Homes, of uniformly distributed qualities (as new builds), matched to homeowners by rank of quality and income
+        sortByIncome(homeowners);
+        int [] qualities = new int[homeowners.size()];
+        for (int i = 0; i < qualities.length; i++) qualities[i] = (int)(rand.nextDouble()*config.N_QUALITY);
+        Arrays.sort(qualities);
+        for (int i = 0; i < qualities.length; i++) {
+            Household h = homeowners.get(i);
+            int cell = cellOf(h);
+            acquire(h, Model.construction.newInitialHouse(region, qualities[i]), true, cell);
+            // Other houses, in a geometrically distributed number with the mean number per homeowner of the cell, are
+            // to be let if owned by an investor, or put up for sale otherwise (as inherited by an owner-occupier)
+            int nOtherHouses = sampleGeometric(EquilibriumProfile.mean(cell, EquilibriumProfile.OTHER_HOUSES,
+                    EquilibriumProfile.HOMEOWNERS, 0.0));
+            while (nOtherHouses-- > 0) {
+                House house = Model.construction.newInitialHouse(region, (int)(rand.nextDouble()*config.N_QUALITY));
+                acquire(h, house, false, cell);
+                if (h.behaviour.isPropertyInvestor()) {
+                    lettings.add(house);
+                } else {
+                    h.offerInitialHouse(house);
+                }
+            }
+        }
+        // Houses short of the target housing stock, which would otherwise be built and sold at reference prices in
+        // the first month, go to investors chosen at random as further houses to let
+        ArrayList<Household> investors = new ArrayList<>();
+        for (Household h : homeowners) if (h.behaviour.isPropertyInvestor()) investors.add(h);
+        int shortFall = Model.construction.getTargetStock(region) - region.getHousingStock();
+        while (shortFall-- > 0 && !investors.isEmpty()) {
+            Household h = investors.get(rand.nextInt(investors.size()));
+            House house = Model.construction.newInitialHouse(region, (int)(rand.nextDouble()*config.N_QUALITY));
+            acquire(h, house, false, cellOf(h));
+            lettings.add(house);
+        }
+        // Tenancies, for as many renters as houses to let, chosen at random and matched to these houses by rank of
+        // quality and income. Renters left without a house start in social housing and houses left empty are offered
+        // on the rental market
+        shuffle(renters);
+        shuffle(lettings);
+        int nTenancies = Math.min(renters.size(), lettings.size());
+        ArrayList<Household> tenants = new ArrayList<>(renters.subList(0, nTenancies));
+        ArrayList<House> rentedHouses = new ArrayList<>(lettings.subList(0, nTenancies));
+        sortByIncome(tenants);
+        Collections.sort(rentedHouses, new Comparator<House>() {
+            @Override
+            public int compare(House a, House b) { return Integer.compare(a.getQuality(), b.getQuality()); }
+        });
+        for (int i = 0; i < nTenancies; i++) {
+            House house = rentedHouses.get(i);
+            // The remaining length of running tenancies is uniform over the range of lengths of new tenancies
+            int nPayments = 1 + rand.nextInt(config.TENANCY_LENGTH_AVERAGE + config.TENANCY_LENGTH_EPSILON);
+            tenants.get(i).rentInitialHouse(house, (Household)house.owner,
+                    region.regionalRentalMarketStats.getExpAvSalePriceForQuality(house.getQuality()), nPayments);
+        }
+        for (House house : lettings.subList(nTenancies, lettings.size())) {
+            ((Household)house.owner).offerInitialHouse(house);
+        }
+    }
+
+    /**
+     * Give a house to a household, with a mortgage drawn from the profile: with the fraction of houses of the same kind
+     * (home or other) with a mortgage in the cell, the mean loan-to-value ratio of these mortgages, and a number of
+     * payments left uniformly distributed around their mean number of payments left
+     */
+    private void acquire(Household h, House house, boolean isHome, int cell) {
+        int nHouses = isHome ? EquilibriumProfile.HOMEOWNERS : EquilibriumProfile.OTHER_HOUSES;
+        int nMortgages = isHome ? EquilibriumProfile.HOME_MORTGAGES : EquilibriumProfile.OTHER_MORTGAGES;
+        double loanToValue = 0.0;
+        int nPayments = 0;
+        if (rand.nextDouble() < EquilibriumProfile.mean(cell, nMortgages, nHouses, 0.0)) {
+            loanToValue = EquilibriumProfile.mean(cell, isHome ? EquilibriumProfile.HOME_LTV
+                    : EquilibriumProfile.OTHER_LTV, nMortgages, 0.0);
+            double meanPaymentsLeft = EquilibriumProfile.mean(cell, isHome ? EquilibriumProfile.HOME_PAYMENTS_LEFT
+                    : EquilibriumProfile.OTHER_PAYMENTS_LEFT, nMortgages, 1.0);
+            int maxPayments = Math.min(config.derivedParams.N_PAYMENTS, (int)(2.0*meanPaymentsLeft + 0.5) - 1);
+            nPayments = 1 + rand.nextInt(Math.max(1, maxPayments));
+        }
+        h.acquireInitialHouse(house, isHome, loanToValue, nPayments);
+    }
+
+    /**
+     * @param mean Mean of the distribution
+     * @return Sample from a geometric distribution over 0, 1, 2... with the given mean
+     */
+    private int sampleGeometric(double mean) {
+        if (mean <= 0.0) return 0;
+        return (int)Math.floor(Math.log(1.0 - rand.nextDouble())/Math.log(mean/(1.0 + mean)));
+    }
+
+    private static void sortByIncome(ArrayList<Household> households) {
+        Collections.sort(households, new Comparator<Household>() {
+            @Override
+            public int compare(Household a, Household b) {
+                return Double.compare(a.monthlyEmploymentIncome, b.monthlyEmploymentIncome);
+            }
+        });
+    }
+
+    /**
+     * Fisher-Yates shuffle with the Model's random number generator, so that initial states are reproducible
+     */
+    private <T> void shuffle(ArrayList<T> list) {
+        for (int i = list.size() - 1; i > 0; i--) Collections.swap(list, i, rand.nextInt(i + 1));
+    }
+
+    private double nextGaussian() {
+        return config.FAST_SAMPLERS ? ZigguratGaussian.nextGaussian(rand) : rand.nextGaussian();
+    }
+
+    private static int cellOf(Household h) {
+        return EquilibriumProfile.cellOf(h.getAge(), h.incomePercentile, h.behaviour.isPropertyInvestor());
+    }
+
+    //----- Sampling of the equilibrium profile -----//
+
+    /**
+     * Sample the population once a year from month EQUILIBRIUM_PROFILE_SAMPLING_START on (only if this is positive)
+     */
+    void step() {
+        int t = Model.getTime();
+        int start = config.EQUILIBRIUM_PROFILE_SAMPLING_START;
+        if (start <= 0 || t < start || (t - start)%config.constants.MONTHS_IN_YEAR != 0) return;
+        nSamples++;
+        sampledMarketLevels[EquilibriumProfile.SALE_HPI] += Model.housingMarketStats.getHPI();
+        sampledMarketLevels[EquilibriumProfile.RENTAL_HPI] += Model.rentalMarketStats.getHPI();
+        sampledMarketLevels[EquilibriumProfile.RENTAL_FLOW_YIELD] += Model.rentalMarketStats.getExpAvFlowYield();
+        sampledMarketLevels[EquilibriumProfile.MORTGAGE_INTEREST_RATE] += Model.bank.getMortgageInterestRate();
+        // Quality bands and days on market are averaged over the regional statistics, which are those used by households
+        for (Region region : geography) {
+            RegionalHousingMarketStats saleStats = region.regionalHousingMarketStats;
+            RegionalRentalMarketStats rentalStats = region.regionalRentalMarketStats;
+            double weight = 1.0/geography.size();
+            sampledMarketLevels[EquilibriumProfile.SALE_DAYS_ON_MARKET] += weight*saleStats.getExpAvDaysOnMarket();
+            sampledMarketLevels[EquilibriumProfile.RENTAL_DAYS_ON_MARKET] += weight*rentalStats.getExpAvDaysOnMarket();
+            for (int q = 0; q < config.N_QUALITY; q++) {
+                sampledQualityBands[EquilibriumProfile.SALE_PRICE][q] += weight*saleStats.getExpAvSalePriceForQuality(q);
+                sampledQualityBands[EquilibriumProfile.RENT][q] += weight*rentalStats.getExpAvSalePriceForQuality(q);
+                sampledQualityBands[EquilibriumProfile.RENTAL_MONTHS_ON_MARKET][q]
+                        += weight*rentalStats.getExpAvMonthsOnMarketForQuality(q);
+                sampledQualityBands[EquilibriumProfile.RENTAL_OCCUPANCY][q]
+                        += weight*rentalStats.getAvOccupancyForQuality(q);
+                sampledQualityBands[EquilibriumProfile.RENTAL_FLOW_YIELD_OF_QUALITY][q]
+                        += weight*rentalStats.getAvFlowYieldForQuality(q);
+            }
+        }
+        for (Region region : geography) {
+            for (Household h : region.households) {
+                double [] cell = sampledCells[cellOf(h)];
+                int tenure;
+                if (h.isHomeowner()) {
+                    tenure = EquilibriumProfile.HOMEOWNERS;
+                } else if (h.isRenting()) {
+                    tenure = EquilibriumProfile.RENTERS;
+                } else {
+                    tenure = EquilibriumProfile.IN_SOCIAL_HOUSING;
+                }
+                cell[EquilibriumProfile.HOUSEHOLDS]++;
+                cell[tenure]++;
+                if (h.getBankBalance() > 1.0) {
+                    int saving = EquilibriumProfile.savingColumn(tenure);
+                    double lnBankBalance = Math.log(h.getBankBalance());
+                    cell[saving]++;
+                    cell[saving + 1] += lnBankBalance;
+                    cell[saving + 2] += lnBankBalance*lnBankBalance;
+                }
+                for (House house : h.getHousePayments().keySet()) {
+                    if (house.owner != h) continue; // Rented home
+                    boolean isHome = (house == h.getHome());
+                    if (!isHome) cell[EquilibriumProfile.OTHER_HOUSES]++;
+                    // Only mortgages with payments left are counted, as these are the only ones initialised
+                    MortgageAgreement mortgage = h.mortgageFor(house);
+                    double principal = mortgage.getPrincipal();
+                    if (principal > 0.0 && mortgage.nPayments > 0 && mortgage.purchasePrice > 0.0) {
+                        cell[isHome ? EquilibriumProfile.HOME_MORTGAGES : EquilibriumProfile.OTHER_MORTGAGES]++;
+                        cell[isHome ? EquilibriumProfile.HOME_LTV : EquilibriumProfile.OTHER_LTV]
+                                += principal/mortgage.purchasePrice;
+                        cell[isHome ? EquilibriumProfile.HOME_PAYMENTS_LEFT : EquilibriumProfile.OTHER_PAYMENTS_LEFT]
+                                += mortgage.nPayments;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the sampled equilibrium profile, if any sample has been taken, to the output folder (to be called at the
+     * end of each simulation)
+     */
+    void endOfSim() {
+        if (nSamples == 0) return;
+        try (PrintWriter outfile = new PrintWriter(outputFolderCopy + "EquilibriumProfile-run" + Model.nSimulation
+                + ".csv", "UTF-8")) {
+            outfile.println("# Equilibrium profile sampled once a year from month "
+                    + config.EQUILIBRIUM_PROFILE_SAMPLING_START + " to month " + (config.EQUILIBRIUM_PROFILE_SAMPLING_START
+                    + (nSamples - 1)*config.constants.MONTHS_IN_YEAR) + " (" + nSamples
+                    + " samples) of simulation " + Model.nSimulation + ", with seed " + config.SEED);
+            outfile.println("# Sale HPI, Rental HPI, Rental flow yield, Mortgage interest rate, Sale days on market, "
+                    + "Rental days on market (averages over samples)");
+            StringBuilder line = new StringBuilder();
+            for (double value : sampledMarketLevels) {
+                if (line.length() > 0) line.append(", ");
+                line.append(value/nSamples);
+            }
+            outfile.println(line);
+            outfile.println("# Quality, Sale price, Rent, Rental months on market, Rental occupancy, Rental flow yield "
+                    + "(averages over samples)");
+            for (int q = 0; q < config.N_QUALITY; q++) {
+                line = new StringBuilder().append(q);
+                for (double [] column : sampledQualityBands) line.append(", ").append(column[q]/nSamples);
+                outfile.println(line);
+            }
+            outfile.println("# Age min, Age max, Income quartile, Investor, Households, Homeowners, Renters, "
+                    + "In social housing, Other houses, Saving, Sum ln(bank balance) and Sum ln(bank balance)^2 "
+                    + "of homeowners, of renters and of households in social housing, Home mortgages, Sum home LTV, "
+                    + "Sum home payments left, Other mortgages, Sum other LTV, Sum other payments left");
+            for (int band = 0; band < EquilibriumProfile.N_AGE_BANDS; band++) {
+                double ageMin = EquilibriumProfile.MIN_AGE + band*EquilibriumProfile.AGE_BAND_WIDTH;
+                for (int quartile = 0; quartile < EquilibriumProfile.N_INCOME_QUARTILES; quartile++) {
+                    for (int investor = 0; investor < 2; investor++) {
+                        line = new StringBuilder().append(ageMin).append(", ")
+                                .append(ageMin + EquilibriumProfile.AGE_BAND_WIDTH).append(", ").append(quartile).append(", ").append(investor);
+                        for (double value : sampledCells[EquilibriumProfile.cellOf(ageMin,
+                                (quartile + 0.5)/EquilibriumProfile.N_INCOME_QUARTILES, investor == 1)]) {
+                            line.append(", ").append(value);
+                        }
+                        outfile.println(line);
+                    }
+                }
+            }
+        } catch (FileNotFoundException | UnsupportedEncodingException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -9,7 +9,59 @@ package housing;
  ****************************************/
 public class Government {
 
-	private Config	config = Model.config;	// Passes the Model's configuration parameters object to a private field
+	private Config		config = Model.config;	// Passes the Model's configuration parameters object to a private field
+	private BandTable	incomeTax = new BandTable(data.Government.tax.bands, data.Government.tax.rates);
+	private BandTable	class1NICs = new BandTable(data.Government.nationalInsurance.bands,
+			data.Government.nationalInsurance.rates);
+
+	/**********************************
+	 * Table to calculate a "banded percentage" on a value.
+	 * A "banded percentage" is a way of calculating a non-linear
+	 * function, f(x), widely used by HMRC. The domain of
+	 * values of f(x) is split into bands: from 0 to x1, from x1 to x2
+	 * etc. Each band is associated with a percentage p1, p2 etc.
+	 * The final value of f(x) is the sum of the percentages of each band.
+	 * So, for example, if x lies somewhere between x1 and x2, f(x) would be
+	 * p1x1 + p2(x-x1)
+	 *
+	 * The value of f(x) at each band edge is precomputed, so that f(x)
+	 * is found with a binary search for the band followed by a single
+	 * multiply-add.
+	 ***********************************/
+	private static class BandTable {
+		private double [] bands; // Lower limit of each band, in increasing order
+		private double [] rates; // Percentage applicable above each band limit
+		private double [] dueAtBand; // Value of f(x) at the lower limit of each band
+
+		BandTable(double [] bands, double [] rates) {
+			this.bands = bands.clone();
+			this.rates = rates.clone();
+			dueAtBand = new double[bands.length];
+			for(int i = 1; i < bands.length; ++i) {
+				dueAtBand[i] = dueAtBand[i - 1] + (bands[i] - bands[i - 1])*rates[i - 1];
+			}
+		}
+
+		/**
+		 * @param taxableIncome the value to apply the banded percentage to.
+		 * @return The banded percentage of 'taxableIncome'
+		 */
+		double due(double taxableIncome) {
+			// Find the highest band whose limit is strictly below taxableIncome
+			int lo = 0;
+			int hi = bands.length;
+			while(lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if(taxableIncome > bands[mid]) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+			if(lo == 0) return(0.0);
+			return(dueAtBand[lo - 1] + (taxableIncome - bands[lo - 1])*rates[lo - 1]);
+		}
+	}
 
 	/******************************************
 	 * Calculates the income tax due in one year for a given 
@@ -19,7 +71,7 @@ public class Government {
 	 * @return The annual income tax due in pounds.
 	 ******************************************/
 	public double incomeTaxDue(double grossIncome) {
-		double tax = bandedPercentage(grossIncome, data.Government.tax.bands, data.Government.tax.rates);
+		double tax = incomeTax.due(grossIncome);
 		if(grossIncome > config.GOVERNMENT_PERSONAL_ALLOWANCE_LIMIT) {
 			//double personalAllowance = Math.max((grossIncome - config.GOVERNMENT_PERSONAL_ALLOWANCE_LIMIT)/2.0,0.0);
 			double personalAllowance = Math.max(
@@ -38,34 +90,6 @@ public class Government {
 	 * @return Annual class 1 NICs due.
 	 **********************************/
 	public double class1NICsDue(double grossIncome) {
-		return(bandedPercentage(grossIncome, data.Government.nationalInsurance.bands, data.Government.nationalInsurance.rates));
-	}
-	
-	/**********************************
-	 * Calculate a "banded percentage" on a value.
-	 * A "banded percentage" is a way of calculating a non-linear
-	 * function, f(x), widely used by HMRC. The domain of
-	 * values of f(x) is split into bands: from 0 to x1, from x1 to x2
-	 * etc. Each band is associated with a percentage p1, p2 etc.
-	 * The final value of f(x) is the sum of the percentages of each band.
-	 * So, for example, if x lies somewhere between x1 and x2, f(x) would be 
-	 * p1x1 + p2(x-x1)
-	 * 
-	 * @param taxableIncome the value to apply the banded percentage to.
-	 * @param bands an array holding the upper limit of each band
-	 * @param rates an array holding the percentage applicable to each band
-	 * @return The banded percentage of 'taxableIncome'
-	 ***********************************/
-	protected double bandedPercentage(double taxableIncome, Double [] bands, Double [] rates) {
-		int i = 0;
-		double lastRate = 0.0;
-		double tax = 0.0;
-		
-		while(i < bands.length && taxableIncome > bands[i]) {
-			tax += (taxableIncome - bands[i])*(rates[i] - lastRate);
-			lastRate = rates[i];
-			++i;
-		}
-		return(tax);
+		return(class1NICs.due(grossIncome));
 	}
 }
@@ -15,12 +15,10 @@ public class House implements Comparable<House>, Serializable {
     //----- Fields -----//
     //------------------//
 
-    private static int 	id_pool = 0;
-
     public IHouseOwner  owner;
     public Household    resident;
     public Region       region;
-    public int          id;
+    public int          id; // Dense id assigned by Model.houseRegistry (houses are never removed from the model)
 
     HouseSaleRecord     saleRecord;
     HouseSaleRecord     rentalRecord;
@@ -38,7 +36,7 @@ public class House implements Comparable<House>, Serializable {
      * @param quality Quality band characterizing the house
      */
 	public House(Region region, int quality) {
-		this.id = ++id_pool;
+		this.id = Model.houseRegistry.register(this);
         this.owner = null;
         this.resident = null;
         this.region = region;
@@ -59,10 +57,16 @@ public class House implements Comparable<House>, Serializable {
     void putForSale(HouseSaleRecord saleRecord) { this.saleRecord = saleRecord; }
 
 	void resetSaleRecord() { saleRecord = null; }
+
     void putForRent(HouseSaleRecord rentalRecord) { this.rentalRecord = rentalRecord; }
 
 	void resetRentalRecord() { rentalRecord = null; }
 
+    void setOwner(IHouseOwner owner) {
+        this.owner = owner;
+        if (resident != null) resident.reportToRegionalStats(); // Whether the resident owns its home may have changed
+    }
+
 	public int getQuality() { return quality; }
 
     public Region getRegion() { return region; }
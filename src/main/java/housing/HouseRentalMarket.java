@@ -31,7 +31,7 @@ public class HouseRentalMarket extends HousingMarket {
     @Override
 	public void completeTransaction(HouseBuyerRecord purchase, HouseSaleRecord sale) {
         region.regionalRentalMarketStats.recordTransaction(sale);
-		sale.house.rentalRecord = null;
+		sale.house.resetRentalRecord();
 		purchase.buyer.completeHouseRental(sale);
 		sale.house.owner.completeHouseLet(sale);
 		region.regionalRentalMarketStats.recordSale(purchase, sale);
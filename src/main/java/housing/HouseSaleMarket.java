@@ -35,18 +35,19 @@ public class HouseSaleMarket extends HousingMarket {
 	public void completeTransaction(HouseBuyerRecord purchase, HouseSaleRecord sale) {
         // TODO: Revise if it makes sense to have recordTransaction as a separate method from recordSale
 		region.regionalHousingMarketStats.recordTransaction(sale);
-		sale.house.saleRecord = null;
+		sale.house.resetSaleRecord();
 		Household buyer = purchase.buyer;
 		if(buyer == sale.house.owner) return; // TODO: Shouldn't this if be the first line in this method?
 		sale.house.owner.completeHouseSale(sale);
 		buyer.completeHousePurchase(sale);
         region.regionalHousingMarketStats.recordSale(purchase, sale);
-		sale.house.owner = buyer;
+		sale.house.setOwner(buyer);
 	}
 
 	@Override
 	public HouseSaleRecord offer(House house, double price) {
 		HouseSaleRecord hsr = super.offer(house, price);
+		if (house.owner == Model.construction) addConstructionOffer(hsr);
 		offersPY.add(hsr);
 		house.putForSale(hsr);
 		return(hsr);
@@ -112,11 +113,14 @@ public class HouseSaleMarket extends HousingMarket {
 			@Override
 			public void remove() {
 				underlyingIterator.remove();
+				if(underlyingIterator.last != null) removeFromOfferAggregates(underlyingIterator.last);
 				if(underlyingIterator.last != null) HouseSaleMarket.this.offersPY.remove(underlyingIterator.last);
 			}
 		});
 	}
 
+	public PriorityQueue2D<HousingMarketRecord> getOffersPY() { return offersPY; }
+
 	/*******************************************
 	 * Make a bid on the market as a Buy-to-let investor
 	 *  (i.e. make an offer on a (yet to be decided) house).
@@ -124,5 +128,5 @@ public class HouseSaleMarket extends HousingMarket {
 	 * @param buyer The household that is making the bid.
 	 * @param maxPrice The maximum price that the household is willing to pay.
 	 ******************************************/
-	void BTLbid(Household buyer, double maxPrice) { bids.add(new BTLBuyerRecord(buyer, maxPrice)); }
+	void BTLbid(Household buyer, double maxPrice) { addBid(new BTLBuyerRecord(buyer, maxPrice)); }
 }
@@ -22,6 +22,7 @@ public class HouseSaleRecord extends HousingMarketRecord {
     public double                   initialListedPrice;
     public int                      tInitialListing; // Time of initial listing
     private double                  houseSpecificYield;
+    boolean                         isConstructionOffer; // True if listed by the construction sector
 
     //------------------------//
     //----- Constructors -----//
@@ -39,7 +40,7 @@ public class HouseSaleRecord extends HousingMarketRecord {
 		house = h;
 		initialListedPrice = price;
 		tInitialListing = Model.getTime();
-		matchedBids = new ArrayList<>(8); // TODO: Check if this initial size of 8 is good enough or can be improved
+		matchedBids = new ArrayList<>(); // Backing array only allocated upon the first match, most offers never get one
         recalculateHouseSpecificYield(price);
 	}
 
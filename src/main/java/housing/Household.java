@@ -6,7 +6,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
 
-import org.apache.commons.math3.random.MersenneTwister;
+import collectors.RegionalHouseholdStats;
+import utilities.RandomEngine;
 
 /**************************************************************************************************
  * This represents a household who receives an income, consumes, saves and can buy, sell, let, and
@@ -24,9 +25,9 @@ public class Household implements IHouseOwner, Serializable {
 
     private static final long   serialVersionUID = -5042897399316333745L;
     private static int          bankruptcies = 0; // TODO: Unused variable... counts bankruptcies, but it's never used!
-    private static int          id_pool;
 
-    public int                  id; // Only used for identifying households within the class MicroDataRecorder
+    public int                  id; // Dense id assigned by Model.householdRegistry, recycled after the household dies
+    int                         regionIndex; // Position of the household in the households list of its region
     public double               monthlyEmploymentIncome;
     public HouseholdBehaviour   behaviour; // Behavioural plugin
 
@@ -37,10 +38,27 @@ public class Household implements IHouseOwner, Serializable {
     private House                           home;
     private Map<House, PaymentAgreement>    housePayments = new TreeMap<>(); // Houses owned and their payment agreements
     private Config                          config = Model.config; // Passes the Model's configuration parameters object to a private field
-    private MersenneTwister                 rand; // Private field to contain the Model's random number generator
+    private RandomEngine                    rand; // Private field to contain the Model's random number generator
     private double                          age; // Age of the household representative person
     private double                          bankBalance;
     private double                          monthlyPropertyIncome; // TODO: Check how this is computed and make sure it is OK
+    private int                             incomeAgeBin = -1; // Age bin of the income distribution used for annualIncome
+    private double                          binAnnualIncome; // Annual income within incomeAgeBin, as the percentile is fixed for life
+    // Derived quantities, kept until any of the variables they depend on changes
+    private double                          monthlyTaxAndNICs; // Income tax and NICs due on monthlyEmploymentIncome, per month
+    private double                          monthlyPreTaxIncome;
+    private boolean                         isPreTaxIncomeStale = true; // True if monthlyPreTaxIncome needs recomputing
+    private MortgageAgreement               homeMortgage; // Mortgage on the home, null until needed or if not a homeowner
+    // Lazy accrual of the finances of dormant households (only used if LAZY_DORMANT_HOUSEHOLDS is set)
+    private int                             dormantUntil = -1; // Month at which a dormant household is stepped again, -1 if active
+    private int                             financesTime; // Last month whose finances have been applied, while dormant
+    private int                             tenancyEndTime; // Month of the last rent payment, while renting
+    // Contribution to the statistics of the region, as last reported to its RegionalHouseholdStats
+    private boolean                         isCountedInStats; // True from birth until death
+    private int                             statsType = RegionalHouseholdStats.NONE;
+    private double                          statsMonthlyIncome;
+    private int                             statsRentQuality = RegionalHouseholdStats.NONE; // Quality of the home, if renting
+    private double                          statsMonthlyRent;
     private boolean                         isFirstTimeBuyer;
     private boolean                         isBankrupt;
 
@@ -58,12 +76,12 @@ public class Household implements IHouseOwner, Serializable {
         rand = Model.rand;    // Passes the Model's random number generator to a private field of each instance
         home = null;
         isFirstTimeBuyer = true;
-        id = ++id_pool;
+        id = Model.householdRegistry.register(this);
         age = householdAgeAtBirth;
         incomePercentile = rand.nextDouble();
         behaviour = new HouseholdBehaviour(incomePercentile);
-        monthlyEmploymentIncome = annualIncome()/config.constants.MONTHS_IN_YEAR;
-        bankBalance = behaviour.getDesiredBankBalance(this); // Desired bank balance is used as initial value for actual bank balance
+        setMonthlyEmploymentIncome(annualIncome()/config.constants.MONTHS_IN_YEAR);
+        setBankBalance(behaviour.getDesiredBankBalance(this)); // Desired bank balance is used as initial value for actual bank balance
         monthlyPropertyIncome = 0.0;
         isBankrupt =false;
     }
@@ -73,9 +91,43 @@ public class Household implements IHouseOwner, Serializable {
     //-------------------//
 
     public double getBankBalance() {
+        syncDormant();
         return bankBalance;
     }
 
+    private void setBankBalance(double bankBalance) {
+        this.bankBalance = bankBalance;
+        isPreTaxIncomeStale = true;
+        reportIncomeToRegionalStats();
+    }
+
+    private void setMonthlyPropertyIncome(double monthlyPropertyIncome) {
+        this.monthlyPropertyIncome = monthlyPropertyIncome;
+        isPreTaxIncomeStale = true;
+        reportIncomeToRegionalStats();
+    }
+
+    /**
+     * Set the monthly employment income, recomputing the tax and NICs due on it only if it has changed, which happens
+     * only when the household moves to a new age bin of the income distribution
+     */
+    private void setMonthlyEmploymentIncome(double monthlyEmploymentIncome) {
+        if (monthlyEmploymentIncome != this.monthlyEmploymentIncome) {
+            monthlyTaxAndNICs = (Model.government.incomeTaxDue(monthlyEmploymentIncome*config.constants.MONTHS_IN_YEAR)
+                    + Model.government.class1NICsDue(monthlyEmploymentIncome*config.constants.MONTHS_IN_YEAR))
+                    / config.constants.MONTHS_IN_YEAR;
+        }
+        this.monthlyEmploymentIncome = monthlyEmploymentIncome;
+        isPreTaxIncomeStale = true;
+        reportIncomeToRegionalStats();
+    }
+
+    private void setHome(House home) {
+        this.home = home;
+        homeMortgage = null;
+        reportToRegionalStats();
+    }
+
     public House getHome() {
         return home;
     }
@@ -98,28 +150,52 @@ public class Household implements IHouseOwner, Serializable {
      * - buy/sell/rent out properties if BTL investor
      ********************************************************/
     public void step() {
+        stepFinances();
+        stepDecisions();
+    }
+
+    /********************************************************
+     * First part of the monthly step: age, receive income, make housing payments and consume
+     ********************************************************/
+    void stepFinances() {
         double disposableIncome;
 
         age += 1.0/config.constants.MONTHS_IN_YEAR;
-        monthlyEmploymentIncome = annualIncome()/config.constants.MONTHS_IN_YEAR;
+        setMonthlyEmploymentIncome(annualIncome()/config.constants.MONTHS_IN_YEAR);
         disposableIncome = getMonthlyPostTaxIncome()
                 - config.ESSENTIAL_CONSUMPTION_FRACTION * config.GOVERNMENT_INCOME_SUPPORT; // necessary consumption
         for(PaymentAgreement payment : housePayments.values()) {
             disposableIncome -= payment.makeMonthlyPayment();
         }
-        
+        spend(disposableIncome, Model.getTime());
+    }
+
+    /********************************************************
+     * Add disposable income after house payments to the bank balance and consume
+     *
+     * @param disposableIncome Disposable income after house payments
+     * @param month Month for which the income is received
+     ********************************************************/
+    private void spend(double disposableIncome, int month) {
         // --- consume based on disposable income after house payments
         // TODO: What? Does this mean only FTB consume?
-        bankBalance += disposableIncome;
+        setBankBalance(bankBalance + disposableIncome);
         // TODO: What is the purpose of this if condition?
-        if(isFirstTimeBuyer() || !isInSocialHousing()) bankBalance -= behaviour.getDesiredConsumption(this);
+        if(isFirstTimeBuyer() || !isInSocialHousing()) setBankBalance(bankBalance - behaviour.getDesiredConsumption(this));
         if(bankBalance < 0.0) { // Behaviour if household is bankrupt
-            bankBalance = 1.0;    // TODO: cash injection for now...
-            if (Model.getTime()>1000) {
+            setBankBalance(1.0);    // TODO: cash injection for now...
+            if (month>1000) {
                 if (!isBankrupt) bankruptcies += 1;
                 isBankrupt = true;
             }
         }
+    }
+
+    /********************************************************
+     * Second part of the monthly step: manage owned houses and make housing market decisions. In batch decisions mode,
+     * the decisions to sell and to buy-to-let have already been evaluated for all households in the region
+     ********************************************************/
+    void stepDecisions() {
         // TODO: Attention, here BTL agents might have properties in more than one region
         for(House h : housePayments.keySet()) {
             if(h.owner == this) manageHouse(h); // Manage all owned properties
@@ -130,7 +206,7 @@ public class Household implements IHouseOwner, Serializable {
         if(isInSocialHousing()) {
             bidForAHome(region); // When BTL households are born, they enter here the first time!
         } else if(isRenting()) {
-            if(housePayments.get(home).nPayments == 0) { // end of rental period for renter
+            if(Model.getTime() >= tenancyEndTime) { // end of rental period for renter
                 endTenancy();
                 bidForAHome(region);
             }            
@@ -138,7 +214,7 @@ public class Household implements IHouseOwner, Serializable {
             // TODO: This needs to be broken up in two "decisions" (methods), one for quickly disqualifying investors
             // TODO: who can't afford investing, and another one that, running through the regions, decides whether to
             // TODO: invest there or not (decideToBuyToLetInRegion). How to choose between regions in unbiased manner?
-            if(behaviour.decideToBuyBuyToLet(this, region)) {
+            if(decideToBuyBuyToLet()) {
                 region.houseSaleMarket.BTLbid(this, behaviour.btlPurchaseBid(this, region));
             }
         } else if (!isHomeowner()){
@@ -147,20 +223,35 @@ public class Household implements IHouseOwner, Serializable {
     }
 
     /***
+     * Income only depends on the age bin and the percentile, which is fixed for life, so the inverse cumulative
+     * probability is only computed again when the household crosses into a new age bin
+     *
      * @return Household income given age and percentile of population
      */
     private double annualIncome() {
+        int bin = incomeAgeBinAt(age);
+        if(bin != incomeAgeBin) {
+            double income = data.Lifecycle.lnIncomeGivenAge.get(bin).inverseCumulativeProbability(incomePercentile);
+            income = Math.exp(income);
+            if(income < config.GOVERNMENT_INCOME_SUPPORT) income = config.GOVERNMENT_INCOME_SUPPORT; // minimum income is govt. support
+            incomeAgeBin = bin;
+            binAnnualIncome = income;
+        }
+        return(binAnnualIncome);
+    }
+
+    /***
+     * @return Age bin of the income distribution for a given age, with ages outside the data assigned to the nearest bin
+     */
+    private static int incomeAgeBinAt(double age) {
         double boundAge = age;
         if(boundAge < data.Lifecycle.lnIncomeGivenAge.getSupportLowerBound()) {
             boundAge = data.Lifecycle.lnIncomeGivenAge.getSupportLowerBound();
         }
-        else if(boundAge > data.Lifecycle.lnIncomeGivenAge.getSupportUpperBound()) {
+        else if(boundAge >= data.Lifecycle.lnIncomeGivenAge.getSupportUpperBound()) {
             boundAge = data.Lifecycle.lnIncomeGivenAge.getSupportUpperBound() - 1e-7;
         }
-        double income = data.Lifecycle.lnIncomeGivenAge.getBinAt(boundAge).inverseCumulativeProbability(incomePercentile);
-        income = Math.exp(income);
-        if(income < config.GOVERNMENT_INCOME_SUPPORT) income = config.GOVERNMENT_INCOME_SUPPORT; // minimum income is govt. support
-        return(income);
+        return data.Lifecycle.lnIncomeGivenAge.getBinIndexAt(boundAge);
     }
 
     /******************************
@@ -178,7 +269,7 @@ public class Household implements IHouseOwner, Serializable {
         forSale = h.getSaleRecord();
         if(forSale != null) { // reprice house for sale
             newPrice = behaviour.rethinkHouseSalePrice(forSale);
-            if(newPrice > mortgageFor(h).principal) {
+            if(newPrice > mortgageFor(h).getPrincipal()) {
                 h.region.houseSaleMarket.updateOffer(forSale, newPrice);
             } else {
                 h.region.houseSaleMarket.removeOffer(forSale);
@@ -208,7 +299,7 @@ public class Household implements IHouseOwner, Serializable {
         double principal;
         MortgageAgreement mortgage = mortgageFor(h);
         if(mortgage != null) {
-            principal = mortgage.principal;
+            principal = mortgage.getPrincipal();
         } else {
             principal = 0.0;
         }
@@ -250,15 +341,16 @@ public class Household implements IHouseOwner, Serializable {
             System.out.println("House owner = "+sale.house.owner);
             System.out.println("me = "+this);
         } else {
-            bankBalance -= mortgage.downPayment;
+            setBankBalance(bankBalance - mortgage.downPayment);
             housePayments.put(sale.house, mortgage);
             if (home == null) { // move in to house
-                home = sale.house;
+                setHome(sale.house);
                 sale.house.resident = this;
             } else if (sale.house.resident == null) { // put empty buy-to-let house on rental market
                 sale.house.region.houseRentalMarket.offer(sale.house, buyToLetRent(sale.house));
             }
             isFirstTimeBuyer = false;
+            reportToRegionalStats();
         }
     }
 
@@ -267,8 +359,8 @@ public class Household implements IHouseOwner, Serializable {
      ********************************************************/
     public void completeHouseSale(HouseSaleRecord sale) {
         MortgageAgreement mortgage = mortgageFor(sale.house);
-        bankBalance += sale.getPrice();
-        bankBalance -= mortgage.payoff(bankBalance);
+        setBankBalance(bankBalance + sale.getPrice());
+        setBankBalance(bankBalance - mortgage.payoff(bankBalance));
         if(sale.house.isOnRentalMarket()) {
             sale.house.region.houseRentalMarket.removeOffer(sale);
         }
@@ -277,12 +369,14 @@ public class Household implements IHouseOwner, Serializable {
         }
         if(sale.house == home) { // move out of home and become (temporarily) homeless
             home.resident = null;
-            home = null;
+            setHome(null);
 //            bidOnHousingMarket(1.0);
         } else if(sale.house.resident != null) { // evict current renter
-            monthlyPropertyIncome -= sale.house.resident.housePayments.get(sale.house).monthlyPayment;
+            setMonthlyPropertyIncome(monthlyPropertyIncome
+                    - sale.house.resident.housePayments.get(sale.house).monthlyPayment);
             sale.house.resident.getEvicted();
         }
+        reportToRegionalStats();
     }
     
     /********************************************************
@@ -294,7 +388,7 @@ public class Household implements IHouseOwner, Serializable {
      ********************************************************/
     @Override
     public void endOfLettingAgreement(House h, PaymentAgreement contract) {
-        monthlyPropertyIncome -= contract.monthlyPayment;
+        setMonthlyPropertyIncome(monthlyPropertyIncome - contract.monthlyPayment);
 
         // put house back on rental market
         if(!housePayments.containsKey(h)) {
@@ -315,7 +409,7 @@ public class Household implements IHouseOwner, Serializable {
         home.owner.endOfLettingAgreement(home, housePayments.get(home));
         housePayments.remove(home);
         home.resident = null;
-        home = null;
+        setHome(null);
     //    endOfTenancyAgreement(home, housePayments.remove(home));
     }
     
@@ -329,7 +423,7 @@ public class Household implements IHouseOwner, Serializable {
         }
         housePayments.remove(home);
         home.resident = null;
-        home = null;        
+        setHome(null);        
     }
 
     
@@ -344,11 +438,13 @@ public class Household implements IHouseOwner, Serializable {
             rent.monthlyPayment = sale.getPrice();
             rent.nPayments = config.TENANCY_LENGTH_AVERAGE
                     + rand.nextInt(2*config.TENANCY_LENGTH_EPSILON + 1) - config.TENANCY_LENGTH_EPSILON;
+            // Rent is paid from next month on, so the tenancy is known to end nPayments months from now
+            tenancyEndTime = Model.getTime() + rent.nPayments;
 //            rent.principal = rent.monthlyPayment*rent.nPayments;
             housePayments.put(sale.house, rent);
         }
         if(home != null) System.out.println("Strange: I'm renting a house but not homeless");
-        home = sale.house;
+        setHome(sale.house);
         if(sale.house.resident != null) {
             System.out.println("Strange: tenant moving into an occupied house");
             if(sale.house.resident == this) System.out.println("...It's me!");
@@ -382,9 +478,17 @@ public class Household implements IHouseOwner, Serializable {
     
     
     /********************************************************
-     * Decide whether to sell ones own house.
+     * Decide whether to sell ones own house, using the decision already evaluated for this month in batch decisions
+     * mode, if any.
      ********************************************************/
     private boolean decideToSellHouse(House h) {
+        if(Model.decisionKernel != null && Model.decisionKernel.hasSellDecision(h)) {
+            return Model.decisionKernel.getSellDecision(h);
+        }
+        return decideToSellHouseDirectly(h);
+    }
+
+    private boolean decideToSellHouseDirectly(House h) {
         if(h == home) {
             return(behaviour.decideToSellHome(h));
         } else {
@@ -394,6 +498,17 @@ public class Household implements IHouseOwner, Serializable {
 
 
 
+    /********************************************************
+     * Decide whether to buy a new buy-to-let property, using the decision already evaluated for this month in batch
+     * decisions mode, if any.
+     ********************************************************/
+    private boolean decideToBuyBuyToLet() {
+        if(Model.decisionKernel != null && Model.decisionKernel.hasBuyToLetDecision(this)) {
+            return Model.decisionKernel.getBuyToLetDecision(this);
+        }
+        return behaviour.decideToBuyBuyToLet(this, region);
+    }
+
     /***
      * Do stuff necessary when BTL investor lets out a rental
      * property
@@ -403,7 +518,7 @@ public class Household implements IHouseOwner, Serializable {
         if(sale.house.isOnMarket()) {
             sale.house.region.houseSaleMarket.removeOffer(sale.house.getSaleRecord());
         }
-        monthlyPropertyIncome += sale.getPrice();
+        setMonthlyPropertyIncome(monthlyPropertyIncome + sale.getPrice());
     }
 
     private double buyToLetRent(House h) {
@@ -425,6 +540,9 @@ public class Household implements IHouseOwner, Serializable {
      */
     void transferAllWealthTo(Household beneficiary) {
         if(beneficiary == this) System.out.println("Strange: I'm transferring all my wealth to myself");
+        syncDormant();
+        dormantUntil = -1;
+        beneficiary.wake();
         boolean isHome;
         Iterator<Entry<House, PaymentAgreement>> paymentIt = housePayments.entrySet().iterator();
         Entry<House, PaymentAgreement> entry;
@@ -437,7 +555,7 @@ public class Household implements IHouseOwner, Serializable {
             if(h == home) {
                 isHome = true;
                 h.resident = null;
-                home = null;
+                setHome(null);
             } else {
                 isHome = false;
             }
@@ -450,11 +568,11 @@ public class Household implements IHouseOwner, Serializable {
                 h.owner.endOfLettingAgreement(h, housePayments.get(h));
             }
             if(payment instanceof MortgageAgreement) {
-                bankBalance -= ((MortgageAgreement) payment).payoff();
+                setBankBalance(bankBalance - ((MortgageAgreement) payment).payoff());
             }
             paymentIt.remove();
         }
-        beneficiary.bankBalance += Math.max(0.0, bankBalance);
+        beneficiary.setBankBalance(beneficiary.bankBalance + Math.max(0.0, bankBalance));
     }
     
     /**
@@ -470,10 +588,11 @@ public class Household implements IHouseOwner, Serializable {
         nullMortgage.downPayment = 0.0;
         nullMortgage.monthlyInterestRate = 0.0;
         nullMortgage.monthlyPayment = 0.0;
-        nullMortgage.principal = 0.0;
+        nullMortgage.setPrincipal(0.0);
         nullMortgage.purchasePrice = 0.0;
         housePayments.put(h, nullMortgage);
-        h.owner = this;
+        h.setOwner(this);
+        reportToRegionalStats();
         if(h.resident != null) {
             System.out.println("Strange: inheriting a house with a resident");
         }
@@ -482,10 +601,10 @@ public class Household implements IHouseOwner, Serializable {
             if(isRenting()) {
                 endTenancy();                
             }
-            home = h;
+            setHome(h);
             h.resident = this;
         } else if(behaviour.isPropertyInvestor()) {
-            if(decideToSellHouse(h)) {
+            if(decideToSellHouseDirectly(h)) {
                 putHouseForSale(h);
             } else if(h.resident == null) {
                 h.region.houseRentalMarket.offer(h, buyToLetRent(h));
@@ -496,11 +615,90 @@ public class Household implements IHouseOwner, Serializable {
         }
     }
     
+    /////////////////////////////////////////////////////////
+    // Equilibrium initialisation
+    /////////////////////////////////////////////////////////
+
+    /**
+     * Age a household created at the start of a simulation that begins from a stationary population, keeping the
+     * income percentile and the desired bank balance drawn at birth
+     *
+     * @param age Current age of the household representative person
+     */
+    void ageTo(double age) {
+        this.age = age;
+        setMonthlyEmploymentIncome(annualIncome()/config.constants.MONTHS_IN_YEAR);
+    }
+
+    void setInitialBankBalance(double bankBalance) { setBankBalance(bankBalance); }
+
+    /**
+     * Take ownership of a house at the start of a simulation that begins from a stationary population, as if it had
+     * been bought in the past at the current average price for its quality, with a mortgage with the given loan-to-value
+     * ratio and payments left, and move into it if it is to be the home of the household
+     *
+     * @param h House to own
+     * @param isHome True if the household is to live in the house
+     * @param loanToValue Principal left on the mortgage over the price of the house (zero if there is no mortgage)
+     * @param nPayments Number of payments left on the mortgage
+     */
+    void acquireInitialHouse(House h, boolean isHome, double loanToValue, int nPayments) {
+        double price = h.region.regionalHousingMarketStats.getExpAvSalePriceForQuality(h.getQuality());
+        isFirstTimeBuyer = false;
+        housePayments.put(h, Model.bank.issueInitialMortgage(this, price, loanToValue*price, nPayments, isHome));
+        h.setOwner(this);
+        if (isHome) {
+            setHome(h);
+            h.resident = this;
+        }
+        reportToRegionalStats();
+    }
+
+    /**
+     * Move into a house rented from a landlord at the start of a simulation that begins from a stationary population,
+     * as if the tenancy had started in the past
+     *
+     * @param h House to rent
+     * @param landlord Owner of the house
+     * @param rent Monthly rent
+     * @param nPayments Number of rent payments left, including the one for the first month of the simulation
+     */
+    void rentInitialHouse(House h, Household landlord, double rent, int nPayments) {
+        RentalAgreement agreement = new RentalAgreement();
+        agreement.monthlyPayment = rent;
+        agreement.nPayments = nPayments;
+        // Rent is paid from this month on, so the tenancy ends nPayments - 1 months from now
+        tenancyEndTime = Model.getTime() + nPayments - 1;
+        housePayments.put(h, agreement);
+        setHome(h);
+        h.resident = this;
+        landlord.setMonthlyPropertyIncome(landlord.monthlyPropertyIncome + rent);
+    }
+
+    /**
+     * Put an empty house owned at the start of a simulation that begins from a stationary population on the market: on
+     * the rental market for investors, on the sale market otherwise
+     *
+     * @param h Empty house owned by the household
+     */
+    void offerInitialHouse(House h) {
+        if (behaviour.isPropertyInvestor()) {
+            h.region.houseRentalMarket.offer(h, buyToLetRent(h));
+        } else {
+            putHouseForSale(h);
+        }
+    }
+
     /////////////////////////////////////////////////////////
     // Helpers
     /////////////////////////////////////////////////////////
 
+    Region getRegion() {
+        return region;
+    }
+
     public double getAge() {
+        syncDormant();
         return age;
     }
 
@@ -521,6 +719,10 @@ public class Household implements IHouseOwner, Serializable {
     boolean isFirstTimeBuyer() {
         return isFirstTimeBuyer;
     }
+
+    double getMonthlyPropertyIncome() {
+        return monthlyPropertyIncome;
+    }
     
     /***
      * @return Number of properties this household currently has on the sale market
@@ -537,21 +739,32 @@ public class Household implements IHouseOwner, Serializable {
      * @return monthly disposable (i.e., after tax) income
      */
     double getMonthlyPostTaxIncome() {
-        return getMonthlyPreTaxIncome()
-                - (Model.government.incomeTaxDue(monthlyEmploymentIncome*config.constants.MONTHS_IN_YEAR)
-                + Model.government.class1NICsDue(monthlyEmploymentIncome*config.constants.MONTHS_IN_YEAR))
-                / config.constants.MONTHS_IN_YEAR;
+        syncDormant();
+        return getMonthlyPreTaxIncome() - monthlyTaxAndNICs;
     }
     
     /**
      * @return gross monthly total income
      */
     public double getMonthlyPreTaxIncome() {
-        return (monthlyEmploymentIncome + monthlyPropertyIncome +
-                bankBalance * config.RETURN_ON_FINANCIAL_WEALTH);
+        syncDormant();
+        return currentMonthlyPreTaxIncome();
+    }
+
+    /**
+     * @return Gross monthly total income given the current finances, without bringing a dormant household up to date
+     */
+    private double currentMonthlyPreTaxIncome() {
+        if (isPreTaxIncomeStale) {
+            monthlyPreTaxIncome = monthlyEmploymentIncome + monthlyPropertyIncome +
+                    bankBalance * config.RETURN_ON_FINANCIAL_WEALTH;
+            isPreTaxIncomeStale = false;
+        }
+        return monthlyPreTaxIncome;
     }
     
     public double annualEmploymentIncome() {
+        syncDormant();
         return monthlyEmploymentIncome*config.constants.MONTHS_IN_YEAR;
     }
     
@@ -564,10 +777,212 @@ public class Household implements IHouseOwner, Serializable {
      */
     double getHomeEquity() {
         if(!isHomeowner()) return(0.0);
+        syncDormant();
+        if(homeMortgage == null) homeMortgage = mortgageFor(home);
         return home.region.regionalHousingMarketStats.getExpAvSalePriceForQuality(home.getQuality())
-                - mortgageFor(home).principal;
+                - homeMortgage.getPrincipal();
     }
     
+    /////////////////////////////////////////////////////////
+    // Regional statistics
+    /////////////////////////////////////////////////////////
+
+    /**
+     * Start counting this household in the statistics of its region, to be called once it is born
+     */
+    void addToRegionalStats() {
+        isCountedInStats = true;
+        reportToRegionalStats();
+    }
+
+    /**
+     * Stop counting this household in the statistics of its region, to be called when it dies, before its wealth is
+     * transferred
+     */
+    void removeFromRegionalStats() {
+        region.regionalHouseholdStats.updateHousehold(statsType, statsMonthlyIncome, RegionalHouseholdStats.NONE, 0.0);
+        region.regionalHouseholdStats.updateRent(statsRentQuality, statsMonthlyRent, RegionalHouseholdStats.NONE, 0.0);
+        statsType = RegionalHouseholdStats.NONE;
+        statsRentQuality = RegionalHouseholdStats.NONE;
+        isCountedInStats = false;
+    }
+
+    /**
+     * Report to the statistics of the region any change of type (homeowner, renter, etc.), income or rent, to be called
+     * whenever the houses owned or the home change
+     */
+    void reportToRegionalStats() {
+        if (!isCountedInStats) return;
+        int type = RegionalHouseholdStats.typeOf(this);
+        double income = currentMonthlyPreTaxIncome();
+        if (type != statsType || income != statsMonthlyIncome) {
+            region.regionalHouseholdStats.updateHousehold(statsType, statsMonthlyIncome, type, income);
+            statsType = type;
+            statsMonthlyIncome = income;
+        }
+        int rentQuality = RegionalHouseholdStats.NONE;
+        double rent = 0.0;
+        if (type == RegionalHouseholdStats.RENTING) {
+            rentQuality = home.getQuality();
+            rent = housePayments.get(home).monthlyPayment;
+        }
+        if (rentQuality != statsRentQuality || rent != statsMonthlyRent) {
+            region.regionalHouseholdStats.updateRent(statsRentQuality, statsMonthlyRent, rentQuality, rent);
+            statsRentQuality = rentQuality;
+            statsMonthlyRent = rent;
+        }
+    }
+
+    /**
+     * Report to the statistics of the region a change of pre-tax income, to be called whenever any of its components
+     * changes
+     */
+    private void reportIncomeToRegionalStats() {
+        if (!isCountedInStats) return;
+        double income = currentMonthlyPreTaxIncome();
+        if (income != statsMonthlyIncome) {
+            region.regionalHouseholdStats.updateHousehold(statsType, statsMonthlyIncome, statsType, income);
+            statsMonthlyIncome = income;
+        }
+    }
+
+    /////////////////////////////////////////////////////////
+    // Lazy accrual of dormant households
+    /////////////////////////////////////////////////////////
+
+    /**
+     * Make this household dormant if, after its step for the current month, it has nothing to do until a known future
+     * month. This is the case for owner-occupiers (not investors) that own only their home, with no payments left on
+     * it and with the home off the market, as their only decision is then the event-driven decision to sell the home,
+     * next due at a known candidate month. Until then, their finances follow a deterministic recursion and are only
+     * brought up to date when read. Deaths must then be event-driven too, as the monthly death tests read the age of
+     * every household, which would bring every dormant household up to date every month.
+     *
+     * @return Month at which the household is to be stepped again, or -1 if it stays active
+     */
+    int goDormantIfIdle() {
+        int t = Model.getTime();
+        if(!config.EVENT_DRIVEN_SELL_DECISIONS || !config.EVENT_DRIVEN_DEATHS || behaviour.isPropertyInvestor()
+                || !isHomeowner() || housePayments.size() != 1 || home.isOnMarket() || home.isOnRentalMarket()
+                || housePayments.get(home).nPayments != 0) {
+            return -1;
+        }
+        int wakeTime = behaviour.getNextSellHomeTime();
+        if(wakeTime <= t + 1) return -1;
+        dormantUntil = wakeTime;
+        financesTime = t;
+        return wakeTime;
+    }
+
+    /**
+     * Wake up a dormant household at the month it was scheduled to, bringing its finances up to the previous month
+     *
+     * @param t Current month
+     * @return False if the household was not dormant until this month (it died or was woken up earlier)
+     */
+    boolean wakeIfDue(int t) {
+        if(dormantUntil != t || !isAlive()) return false;
+        catchUp(t - 1);
+        dormantUntil = -1;
+        return true;
+    }
+
+    /**
+     * Wake up a dormant household before its scheduled month, as something happens to it (such as an inheritance),
+     * and return it to the households stepped by its region
+     */
+    private void wake() {
+        if(dormantUntil < 0) return;
+        catchUp(region.getStepTime());
+        dormantUntil = -1;
+        region.activeHouseholds.add(this);
+    }
+
+    /**
+     * @return True if this household has not died
+     */
+    boolean isAlive() { return Model.householdRegistry.get(id) == this; }
+
+    /**
+     * If dormant, bring the finances of this household up to date, as of the last step of its region
+     */
+    private void syncDormant() {
+        if(dormantUntil >= 0) catchUp(region.getStepTime());
+    }
+
+    /**
+     * Apply the finances of a dormant household up to (and including) a given month. Months are processed in segments
+     * with constant employment income, each in closed form if possible and otherwise month by month. Age is still
+     * increased month by month, so that it stays exactly as if the household had been stepped every month.
+     *
+     * @param target Last month to apply
+     */
+    private void catchUp(int target) {
+        // Mark as active meanwhile, as the getters used below would otherwise try to bring the household up to date
+        int wakeTime = dormantUntil;
+        dormantUntil = -1;
+        while(financesTime < target) {
+            // Find the months ahead with the same age bin of the income distribution
+            int nMonths = 0;
+            int bin = -1;
+            double segmentAge = age;
+            while(financesTime + nMonths < target) {
+                double nextAge = segmentAge + 1.0/config.constants.MONTHS_IN_YEAR;
+                int nextBin = incomeAgeBinAt(nextAge);
+                if(nMonths > 0 && nextBin != bin) break;
+                bin = nextBin;
+                segmentAge = nextAge;
+                nMonths++;
+            }
+            age = segmentAge;
+            setMonthlyEmploymentIncome(annualIncome()/config.constants.MONTHS_IN_YEAR);
+            if(!accrueInClosedForm(nMonths)) {
+                for(int month = financesTime + 1; month <= financesTime + nMonths; month++) {
+                    spend(getMonthlyPostTaxIncome()
+                            - config.ESSENTIAL_CONSUMPTION_FRACTION * config.GOVERNMENT_INCOME_SUPPORT, month);
+                }
+            }
+            financesTime += nMonths;
+        }
+        dormantUntil = wakeTime;
+    }
+
+    /**
+     * Apply in closed form the finances of a number of months with constant income and no housing payments. The
+     * balance then follows an affine recursion, x' = a*x + b, with coefficients depending on whether the balance after
+     * income is above the desired bank balance (and thus the household consumes part of it) or not. As the iterates of
+     * an affine recursion are monotone, the regime holds for all months if it holds for the first and the last ones.
+     *
+     * @param nMonths Number of months to apply
+     * @return False, with nothing applied, if the balance crosses the desired bank balance or would go negative
+     */
+    private boolean accrueInClosedForm(int nMonths) {
+        double r = config.RETURN_ON_FINANCIAL_WEALTH;
+        double c = config.CONSUMPTION_FRACTION;
+        double desiredBalance = behaviour.getDesiredBankBalance(this);
+        // Monthly income other than the return on the bank balance, after tax and necessary consumption
+        double income = monthlyEmploymentIncome + monthlyPropertyIncome - monthlyTaxAndNICs
+                - config.ESSENTIAL_CONSUMPTION_FRACTION * config.GOVERNMENT_INCOME_SUPPORT;
+        boolean consumes = bankBalance*(1.0 + r) + income > desiredBalance;
+        double a = consumes ? (1.0 - c)*(1.0 + r) : 1.0 + r;
+        double b = consumes ? (1.0 - c)*income + c*desiredBalance : income;
+        double lastMonthBalance = balanceAfter(a, b, nMonths - 1);
+        if((lastMonthBalance*(1.0 + r) + income > desiredBalance) != consumes) return false;
+        double finalBalance = balanceAfter(a, b, nMonths);
+        if(Math.min(a*bankBalance + b, finalBalance) < 0.0) return false;
+        setBankBalance(finalBalance);
+        return true;
+    }
+
+    /**
+     * @return Bank balance after n months of the affine recursion x' = a*x + b
+     */
+    private double balanceAfter(double a, double b, int n) {
+        if(a == 1.0) return bankBalance + n*b;
+        double aToTheN = Math.pow(a, n);
+        return aToTheN*bankBalance + b*Math.expm1(n*Math.log(a))/(a - 1.0);
+    }
+
     public MortgageAgreement mortgageFor(House h) {
         PaymentAgreement payment = housePayments.get(h);
         if(payment instanceof MortgageAgreement) {
@@ -3,7 +3,9 @@ package housing;
 import java.io.Serializable;
 
 import org.apache.commons.math3.distribution.LogNormalDistribution;
-import org.apache.commons.math3.random.MersenneTwister;
+
+import utilities.RandomEngine;
+import utilities.ZigguratGaussian;
 
 /**************************************************************************************************
  * Class to implement the behavioural decisions made by households
@@ -19,13 +21,22 @@ public class HouseholdBehaviour implements Serializable {
     //------------------//
 
     private Config                  config = Model.config; // Passes the Model's configuration parameters object to a private field
-    private MersenneTwister	        rand = Model.rand; // Passes the Model's random number generator to a private field
+    private RandomEngine	        rand = Model.rand; // Passes the Model's random number generator to a private field
     private boolean                 BTLInvestor;
     private double                  BTLCapGainCoefficient; // Sensitivity of BTL investors to capital gain, 0.0 cares only about rental yield, 1.0 cares only about cap gain
     private double                  propensityToSave;
     private double                  desiredBankBalance; // TODO: Do we even need this variable?
-    private LogNormalDistribution   downpaymentDistFTB; // Size distribution for downpayments of first-time-buyers
-    private LogNormalDistribution   downpaymentDistOO; // Size distribution for downpayments of owner-occupiers
+    private int                     nextSellHomeTime = -1; // Next candidate month to sell the home, if event-driven
+    private double                  sellHomeProbabilityBound; // Monthly probability bound used to draw nextSellHomeTime
+
+    // Size distributions for downpayments of first-time-buyers and owner-occupiers. These are only ever used through
+    // their (deterministic) inverse cumulative probability and have identical parameters for all households, so a
+    // single instance is shared among them instead of allocating two distribution objects per household (set up by
+    // setupDistributions, from the model's current configuration)
+    private static LogNormalDistribution    downpaymentDistFTB;
+    private static LogNormalDistribution    downpaymentDistOO;
+    // Scratch space for the mortgage quotes used in decisions, shared as households make their decisions one at a time
+    private static final double []          quote = new double[Bank.QUOTE_SIZE];
 
     //------------------------//
     //----- Constructors -----//
@@ -39,13 +50,8 @@ public class HouseholdBehaviour implements Serializable {
 	 * @param incomePercentile Fixed income percentile for the household (assumed constant over a lifetime)
      */
 	HouseholdBehaviour(double incomePercentile) {
-        // Set downpayment distributions for both first-time-buyers and owner-occupiers
-        downpaymentDistFTB = new LogNormalDistribution(rand, config.DOWNPAYMENT_FTB_SCALE,
-                config.DOWNPAYMENT_FTB_SHAPE);
-        downpaymentDistOO = new LogNormalDistribution(rand, config.DOWNPAYMENT_OO_SCALE,
-                config.DOWNPAYMENT_OO_SHAPE);
 	    // Compute propensity to save, so that it is constant for a given household
-        propensityToSave = config.DESIRED_BANK_BALANCE_EPSILON*rand.nextGaussian();
+        propensityToSave = config.DESIRED_BANK_BALANCE_EPSILON*nextGaussian();
         // Decide if household is a BTL investor and, if so, its tendency to seek capital gains or rental yields
 		BTLCapGainCoefficient = 0.0;
         // TODO: Check this if condition... why to divide by config.MIN_INVESTOR_PERCENTILE?
@@ -67,6 +73,17 @@ public class HouseholdBehaviour implements Serializable {
     //----- Methods -----//
     //-------------------//
 
+    /**
+     * Set up the distributions shared by all households from the model's current configuration and random number
+     * generator. This must be called at model setup, before any household is created
+     */
+    static void setupDistributions() {
+        downpaymentDistFTB = new LogNormalDistribution(Model.rand, Model.config.DOWNPAYMENT_FTB_SCALE,
+                Model.config.DOWNPAYMENT_FTB_SHAPE);
+        downpaymentDistOO = new LogNormalDistribution(Model.rand, Model.config.DOWNPAYMENT_OO_SCALE,
+                Model.config.DOWNPAYMENT_OO_SHAPE);
+    }
+
     //----- Owner-Occupier behaviour -----//
 
 	/**
@@ -110,7 +127,7 @@ public class HouseholdBehaviour implements Serializable {
         // TODO: purely artificial fudge parameter. This formula should be reviewed and changed!
         if (HPAFactor > 0.9) HPAFactor = 0.9;
 		return config.BUY_SCALE*config.constants.MONTHS_IN_YEAR*monthlyIncome
-                *Math.exp(config.BUY_EPSILON*rand.nextGaussian())
+                *Math.exp(config.BUY_EPSILON*nextGaussian())
                 /(1.0 - HPAFactor);
 	}
 
@@ -126,7 +143,7 @@ public class HouseholdBehaviour implements Serializable {
                 + Math.log(region.regionalHousingMarketStats.getExpAvSalePriceForQuality(quality) + 1.0)
                 - config.SALE_WEIGHT_DAYS_ON_MARKET*Math.log((region.regionalHousingMarketStats.getExpAvDaysOnMarket()
                 + 1.0)/(config.constants.DAYS_IN_MONTH + 1.0))
-                + config.SALE_EPSILON*rand.nextGaussian();
+                + config.SALE_EPSILON*nextGaussian();
         // TODO: ExpAv days on market should probably be computed for each quality band so as to use here only the correct one
         return Math.max(Math.exp(exponent), principal);
 	}
@@ -147,11 +164,76 @@ public class HouseholdBehaviour implements Serializable {
 	 */
 	boolean decideToSellHome(House house) {
         // TODO: This if implies BTL agents never sell their homes, need to explain in paper!
-        return !isPropertyInvestor() && (rand.nextDouble() < config.derivedParams.MONTHLY_P_SELL*(1.0
-                + config.DECISION_TO_SELL_ALPHA*(config.DECISION_TO_SELL_HPC
-                - house.region.houseSaleMarket.getnHousesOnMarket()/house.region.households.size()))
-                + config.DECISION_TO_SELL_BETA*(config.DECISION_TO_SELL_INTEREST
-                - Model.bank.getMortgageInterestRate()));
+        if (isPropertyInvestor()) return false;
+        if (config.EVENT_DRIVEN_SELL_DECISIONS) return decideToSellHomeAtCandidateTime(house);
+        return rand.nextDouble() < sellHomeProbability(house);
+    }
+
+    /**
+     * Event-driven version of the decision to sell the home. Candidate months are drawn as a Bernoulli process with
+     * the upper bound of the monthly probability to sell, by sampling the geometric waiting time to the next candidate
+     * month, and each candidate month is then accepted with the ratio of the actual probability to the bound (thinning).
+     * This gives the same process as a monthly draw with the actual probability, but owner-occupiers only draw random
+     * numbers about once every HOLD_PERIOD years. As the process is memoryless, the waiting time is simply drawn again
+     * from the current month whenever the last candidate month has been missed (for example, while the house was on the
+     * market, or while the household was not a homeowner) or the bound has changed.
+     *
+     * @param house House (home) that owner is considering selling
+     * @return True if the owner-occupier decides to sell the house and false otherwise.
+     */
+    private boolean decideToSellHomeAtCandidateTime(House house) {
+        int t = Model.getTime();
+        double bound = getSellHomeProbabilityBound();
+        if (nextSellHomeTime < t || bound != sellHomeProbabilityBound) {
+            sellHomeProbabilityBound = bound;
+            nextSellHomeTime = t + geometricWaitingTime(bound);
+        }
+        return t == nextSellHomeTime && rand.nextDouble()*bound < sellHomeProbability(house);
+    }
+
+    /**
+     * @return Monthly probability that an owner-occupier sells its home (can be negative, meaning no sale at all)
+     */
+    private double sellHomeProbability(House house) {
+        return sellHomeProbability(house.region.houseSaleMarket.getnHousesOnMarket(), house.region.households.size(),
+                Model.bank.getMortgageInterestRate());
+    }
+
+    /**
+     * Monthly probability that an owner-occupier sells its home, shared with the batch evaluation at DecisionKernel
+     *
+     * @param nHousesOnMarket Number of houses on the sale market of the region of the home
+     * @param nHouseholds Number of households in the region of the home
+     * @param mortgageRate Current mortgage interest rate
+     * @return Monthly probability to sell (can be negative, meaning no sale at all)
+     */
+    static double sellHomeProbability(int nHousesOnMarket, int nHouseholds, double mortgageRate) {
+        Config config = Model.config;
+        return config.derivedParams.MONTHLY_P_SELL*(1.0
+                + config.DECISION_TO_SELL_ALPHA*(config.DECISION_TO_SELL_HPC - nHousesOnMarket/nHouseholds))
+                + config.DECISION_TO_SELL_BETA*(config.DECISION_TO_SELL_INTEREST - mortgageRate);
+    }
+
+    /**
+     * Upper bound of sellHomeProbability, as the number of houses on the market per household is never negative and
+     * the mortgage interest rate is never below the base rate
+     */
+    private double getSellHomeProbabilityBound() {
+        return Math.min(1.0, config.derivedParams.MONTHLY_P_SELL*(1.0
+                + config.DECISION_TO_SELL_ALPHA*config.DECISION_TO_SELL_HPC)
+                + config.DECISION_TO_SELL_BETA*Math.max(0.0, config.DECISION_TO_SELL_INTEREST
+                - Model.bank.getBaseRate()));
+    }
+
+    /**
+     * @param p Probability of an event each month
+     * @return Number of months without an event before the next event, drawn from a geometric distribution
+     */
+    private int geometricWaitingTime(double p) {
+        if (p >= 1.0) return 0;
+        if (p <= 0.0) return Integer.MAX_VALUE - Model.getTime();
+        double months = Math.floor(Math.log(1.0 - rand.nextDouble())/Math.log1p(-p));
+        return (int)Math.min(months, Integer.MAX_VALUE - Model.getTime());
     }
 
 	/**
@@ -172,7 +254,7 @@ public class HouseholdBehaviour implements Serializable {
                     (me.incomePercentile - config.DOWNPAYMENT_MIN_INCOME)/(1 - config.DOWNPAYMENT_MIN_INCOME)));
 		} else if (isPropertyInvestor()) {
 			downpayment = housePrice*(Math.max(0.0,
-					config.DOWNPAYMENT_BTL_MEAN + config.DOWNPAYMENT_BTL_EPSILON*rand.nextGaussian()));
+					config.DOWNPAYMENT_BTL_MEAN + config.DOWNPAYMENT_BTL_EPSILON*nextGaussian()));
 		} else {
 		    // TODO: Downpayments for inactive BTL investors (who are actually OO) should behave as for OO...
 			downpayment = Model.housingMarketStats.getHPI()*downpaymentDistOO.inverseCumulativeProbability(Math.max(0.0,
@@ -195,7 +277,7 @@ public class HouseholdBehaviour implements Serializable {
 	 ********************************************************/
 	public double rethinkHouseSalePrice(HouseSaleRecord sale) {
 		if(rand.nextDouble() < config.P_SALE_PRICE_REDUCE) {
-			double logReduction = config.REDUCTION_MU+(rand.nextGaussian()*config.REDUCTION_SIGMA);
+			double logReduction = config.REDUCTION_MU+(nextGaussian()*config.REDUCTION_SIGMA);
 			return(sale.getPrice()*(1.0 - Math.exp(logReduction)/100.0));
 		}
 		return(sale.getPrice());
@@ -214,13 +296,12 @@ public class HouseholdBehaviour implements Serializable {
     public boolean decideRentOrPurchase(Household me, Region region, double desiredPurchasePrice) {
         if(isPropertyInvestor()) return(true);
         double purchasePrice = Math.min(desiredPurchasePrice, Model.bank.getMaxMortgage(me, true));
-        MortgageAgreement mortgageApproval = Model.bank.requestApproval(me, purchasePrice,
-                decideDownPayment(me,purchasePrice), true);
+        Model.bank.quoteMortgage(me, purchasePrice, decideDownPayment(me,purchasePrice), true, quote);
         // TODO: Probably need to introduce a region within the household (jobRegion? birthRegion?), such that we can
         // TODO: here query that particular region...
         int newHouseQuality = region.regionalHousingMarketStats.getMaxQualityForPrice(purchasePrice);
         if (newHouseQuality < 0) return false; // can't afford a house anyway
-        double costOfHouse = mortgageApproval.monthlyPayment*config.constants.MONTHS_IN_YEAR
+        double costOfHouse = quote[Bank.QUOTE_MONTHLY_PAYMENT]*config.constants.MONTHS_IN_YEAR
 				- purchasePrice*getLongTermHPAExpectation(region);
         double costOfRent = region.regionalRentalMarketStats.getExpAvSalePriceForQuality(newHouseQuality)
                 *config.constants.MONTHS_IN_YEAR;
@@ -258,21 +339,14 @@ public class HouseholdBehaviour implements Serializable {
 		}
 		double marketPrice = h.region.regionalHousingMarketStats.getExpAvSalePriceForQuality(h.getQuality());
 		// TODO: Why to call this "equity"? It is called "downpayment" in the article!
-        double equity = Math.max(0.01, marketPrice - mortgage.principal); // Dummy security parameter to avoid dividing by zero
+        double equity = Math.max(0.01, marketPrice - mortgage.getPrincipal()); // Dummy security parameter to avoid dividing by zero
 		double leverage = marketPrice/equity;
 		// TODO: ATTENTION ---> This rental yield is not accounting for expected occupancy
 		double rentalYield = h.rentalRecord.getPrice()*config.constants.MONTHS_IN_YEAR/marketPrice;
 		double mortgageRate = mortgage.nextPayment()*config.constants.MONTHS_IN_YEAR/equity;
-		if(config.BTL_YIELD_SCALING) {
-			effectiveYield = leverage*((1.0 - BTLCapGainCoefficient)*rentalYield
-                    + BTLCapGainCoefficient*(h.region.regionalRentalMarketStats.getLongTermExpAvFlowYield()
-					+ getLongTermHPAExpectation(h.region))) - mortgageRate;
-		} else {
-			effectiveYield = leverage*(rentalYield + BTLCapGainCoefficient*getLongTermHPAExpectation(h.region))
-                    - mortgageRate;
-		}
-		double pKeep = Math.pow(sigma(config.BTL_CHOICE_INTENSITY*effectiveYield),
-                1.0/config.constants.MONTHS_IN_YEAR);
+		effectiveYield = btlEffectiveYield(leverage, rentalYield, mortgageRate, BTLCapGainCoefficient,
+                h.region.regionalRentalMarketStats.getLongTermExpAvFlowYield(), getLongTermHPAExpectation(h.region));
+		double pKeep = btlMonthlyChoiceProbability(effectiveYield);
 		return(rand.nextDouble() < (1.0 - pKeep));
 	}
 	
@@ -289,7 +363,7 @@ public class HouseholdBehaviour implements Serializable {
 
 		double exponent = config.RENT_MARKUP + Math.log(rbar + 1.0)
                 - beta*Math.log((d + 1.0)/(config.constants.DAYS_IN_MONTH + 1))
-                + config.RENT_EPSILON*rand.nextGaussian();
+                + config.RENT_EPSILON*nextGaussian();
 		double result = Math.exp(exponent);
         // TODO: The following contains a fudge (config.RENT_MAX_AMORTIZATION_PERIOD) to keep rental yield up
 		double minAcceptable = h.region.regionalHousingMarketStats.getExpAvSalePriceForQuality(h.getQuality())
@@ -332,20 +406,14 @@ public class HouseholdBehaviour implements Serializable {
 
         // --- calculate expected yield on zero quality house
         double effectiveYield;
-		MortgageAgreement m = Model.bank.requestApproval(me, maxPrice, 0.0, false); // maximise leverage with min downpayment
-		double leverage = m.purchasePrice/m.downPayment;
+		Model.bank.quoteMortgage(me, maxPrice, 0.0, false, quote); // maximise leverage with min downpayment
+		double leverage = quote[Bank.QUOTE_PURCHASE_PRICE]/quote[Bank.QUOTE_DOWN_PAYMENT];
 		double rentalYield = region.regionalRentalMarketStats.getExpAvFlowYield();
-		double mortgageRate = m.monthlyPayment*config.constants.MONTHS_IN_YEAR/m.downPayment;
-		if(config.BTL_YIELD_SCALING) {
-			effectiveYield = leverage*((1.0 - BTLCapGainCoefficient)*rentalYield
-                    + BTLCapGainCoefficient*(region.regionalRentalMarketStats.getLongTermExpAvFlowYield()
-					+ getLongTermHPAExpectation(region))) - mortgageRate;
-		} else {
-			effectiveYield = leverage*(rentalYield + BTLCapGainCoefficient*getLongTermHPAExpectation(region))
-                    - mortgageRate;
-		}
-	    return (rand.nextDouble() < Math.pow(sigma(config.BTL_CHOICE_INTENSITY*effectiveYield),
-                1.0/config.constants.MONTHS_IN_YEAR));
+		double mortgageRate = quote[Bank.QUOTE_MONTHLY_PAYMENT]*config.constants.MONTHS_IN_YEAR
+				/quote[Bank.QUOTE_DOWN_PAYMENT];
+		effectiveYield = btlEffectiveYield(leverage, rentalYield, mortgageRate, BTLCapGainCoefficient,
+                region.regionalRentalMarketStats.getLongTermExpAvFlowYield(), getLongTermHPAExpectation(region));
+	    return (rand.nextDouble() < btlMonthlyChoiceProbability(effectiveYield));
 	}
 	
 	public double btlPurchaseBid(Household me, Region region) {
@@ -365,15 +433,53 @@ public class HouseholdBehaviour implements Serializable {
 		return(BTLInvestor = isInvestor);
 	}
 
+    /**
+     * Effective yield of a buy-to-let property, as seen by an investor deciding whether to keep it or whether to buy a
+     * new one, shared with the batch evaluation at DecisionKernel
+     *
+     * @param leverage Ratio of the price of the property to the equity (or down payment) put in it
+     * @param rentalYield Gross rental yield of the property
+     * @param mortgageRate Annual mortgage payments relative to the equity (or down payment)
+     * @param capGainCoefficient Sensitivity of the investor to capital gain
+     * @param longTermFlowYield Long term exponential moving average of the flow rental yield in the region
+     * @param hpaExpectation Expected house price appreciation in the region
+     */
+    static double btlEffectiveYield(double leverage, double rentalYield, double mortgageRate,
+                                    double capGainCoefficient, double longTermFlowYield, double hpaExpectation) {
+        if(Model.config.BTL_YIELD_SCALING) {
+            return leverage*((1.0 - capGainCoefficient)*rentalYield
+                    + capGainCoefficient*(longTermFlowYield + hpaExpectation)) - mortgageRate;
+        } else {
+            return leverage*(rentalYield + capGainCoefficient*hpaExpectation) - mortgageRate;
+        }
+    }
+
+    /**
+     * @param effectiveYield Effective yield of a buy-to-let property (see btlEffectiveYield)
+     * @return Monthly probability that an investor chooses the property, i.e., keeps it if already owned or buys it
+     */
+    static double btlMonthlyChoiceProbability(double effectiveYield) {
+        return Math.pow(sigma(Model.config.BTL_CHOICE_INTENSITY*effectiveYield),
+                1.0/Model.config.constants.MONTHS_IN_YEAR);
+    }
+
     /**
      * Logistic function, sometimes called sigma function, 1/1+e^(-x)
      *
      * @param x Parameter of the sigma or logistic function
      */
-    private double sigma(double x) {
+    static double sigma(double x) {
         return 1.0/(1.0+Math.exp(-1.0*x));
     }
 
+    /**
+     * Standard normal variate for the noise terms of behavioural decisions, drawn with the ziggurat sampler if
+     * FAST_SAMPLERS is set and with the polar method of the random generator otherwise
+     */
+    private double nextGaussian() {
+        return config.FAST_SAMPLERS ? ZigguratGaussian.nextGaussian(rand) : rand.nextGaussian();
+    }
+
 	/**
      * @returns expectation value of HPI in one year's time divided by today's HPI
      */
@@ -384,4 +490,9 @@ public class HouseholdBehaviour implements Serializable {
     }
 
     public double getBTLCapGainCoefficient() { return BTLCapGainCoefficient; }
+
+    /**
+     * @return Next candidate month to sell the home in event-driven mode, -1 if not drawn yet
+     */
+    int getNextSellHomeTime() { return nextSellHomeTime; }
 }
@@ -5,9 +5,9 @@ import java.util.ArrayList;
 import java.util.Iterator;
 
 import org.apache.commons.math3.distribution.GeometricDistribution;
-import org.apache.commons.math3.random.MersenneTwister;
 
 import utilities.PriorityQueue2D;
+import utilities.RandomEngine;
 
 /**************************************************************************************************
  * Class that implements the market mechanism behind both the sale and the rental markets
@@ -25,12 +25,17 @@ public abstract class HousingMarket implements Serializable {
     private static Authority                        authority = new Authority();
 
     private Config                                  config = Model.config; // Passes the Model's configuration parameters object to a private field
-    private MersenneTwister                         rand = Model.rand; // Passes the Model's random number generator to a private field
+    private RandomEngine                            rand = Model.rand; // Passes the Model's random number generator to a private field
     private Region                                  region;
     private PriorityQueue2D<HousingMarketRecord>    offersPQ;
 
     ArrayList<HouseBuyerRecord>                     bids;
 
+    // Running aggregates of the offers and bids currently on the market
+    private double                                  sumOfferPrices;
+    private double                                  sumBidPrices;
+    private int                                     nConstructionOffers; // Offers listed by the construction sector
+
     //------------------------//
     //----- Constructors -----//
     //------------------------//
@@ -60,7 +65,12 @@ public abstract class HousingMarket implements Serializable {
 
     //----- Initialisation methods -----//
     
-    public void init() { offersPQ.clear(); }
+    public void init() {
+        offersPQ.clear();
+        sumOfferPrices = 0.0;
+        sumBidPrices = 0.0;
+        nConstructionOffers = 0;
+    }
 
     //----- Methods to add, update, remove offers and bids -----//
     
@@ -74,8 +84,17 @@ public abstract class HousingMarket implements Serializable {
     public HouseSaleRecord offer(House house, double price) {
         HouseSaleRecord hsr = new HouseSaleRecord(region, house, price);
         offersPQ.add(hsr);
+        sumOfferPrices += price;
         return hsr;
     }
+
+    /**
+     * Count an offer as listed by the construction sector, until it leaves the market
+     */
+    void addConstructionOffer(HouseSaleRecord hsr) {
+        hsr.isConstructionOffer = true;
+        nConstructionOffers++;
+    }
     
     /**
      * Change the list-price on a house that is already on the market
@@ -85,6 +104,7 @@ public abstract class HousingMarket implements Serializable {
      */
     public void updateOffer(HouseSaleRecord hsr, double newPrice) {
         offersPQ.remove(hsr);
+        sumOfferPrices += newPrice - hsr.getPrice();
         hsr.setPrice(newPrice, authority);
         offersPQ.add(hsr);
     }
@@ -94,7 +114,19 @@ public abstract class HousingMarket implements Serializable {
      * 
      * @param hsr The HouseSaleRecord of the house to take off the market
      */
-    public void removeOffer(HouseSaleRecord hsr) { offersPQ.remove(hsr); }
+    public void removeOffer(HouseSaleRecord hsr) {
+        offersPQ.remove(hsr);
+        removeFromOfferAggregates(hsr);
+        hsr.release();
+    }
+
+    /**
+     * Take an offer out of the running aggregates, to be called whenever it leaves the market, before its price changes
+     */
+    void removeFromOfferAggregates(HousingMarketRecord offer) {
+        sumOfferPrices -= offer.getPrice();
+        if (((HouseSaleRecord)offer).isConstructionOffer) nConstructionOffers--;
+    }
 
     /**
      * Make a bid on the market (i.e. make an offer on a (yet to be decided) house
@@ -102,8 +134,12 @@ public abstract class HousingMarket implements Serializable {
      * @param buyer The household that is making the bid
      * @param price The price that the household is willing to pay
      */
-    public void bid(Household buyer, double price) {
-        bids.add(new HouseBuyerRecord(buyer, price)); }
+    public void bid(Household buyer, double price) { addBid(new HouseBuyerRecord(buyer, price)); }
+
+    void addBid(HouseBuyerRecord bid) {
+        bids.add(bid);
+        sumBidPrices += bid.getPrice();
+    }
 
     //----- Market clearing methods -----//
 
@@ -122,7 +158,10 @@ public abstract class HousingMarket implements Serializable {
             clearMatches(); // Step 2: iterate through offers
             i++; // Previously absent
         }
+        for (HouseBuyerRecord bid : bids) bid.release();
         bids.clear();
+        sumBidPrices = 0.0;
+        if (offersPQ.size() == 0) sumOfferPrices = 0.0; // Drop any rounding residue once the market empties
     }
 
     /**
@@ -139,11 +178,14 @@ public abstract class HousingMarket implements Serializable {
             // time, the bid also falls through
             if(offer != null && (offer.house.owner != bid.buyer)) {
                 offer.matchWith(bid);
+            } else {
+                bid.release();
             }
         }
         // To keep only matched bids, we clear the bids ArrayList, it will be refilled with unsuccessful bids when
         // matches are cleared at clearMatches
         bids.clear();
+        sumBidPrices = 0.0;
     }
 
     /**
@@ -164,6 +206,8 @@ public abstract class HousingMarket implements Serializable {
         while(record.hasNext()) {
             offer = (HouseSaleRecord)record.next();
             nBids = offer.matchedBids.size();
+            // Any matched offer is sold and leaves the market, at the list price and with the owner it had
+            if(nBids > 0) removeFromOfferAggregates(offer);
             // If matches for this offer are multiple...
             if(nBids > 1) {
                 // ...first bid up the price
@@ -195,18 +239,23 @@ public abstract class HousingMarket implements Serializable {
                 offer.setPrice(salePrice, authority);
                 // ...complete successful transaction and record it into the corresponding regionalHousingMarketStats
                 completeTransaction(offer.matchedBids.get(winningBid), offer);
+                offer.matchedBids.get(winningBid).release();
                 // Put the rest of the bids for this property (failed bids) back on bids array
-                bids.addAll(offer.matchedBids.subList(0, winningBid));
-                bids.addAll(offer.matchedBids.subList(winningBid + 1, offer.matchedBids.size()));
+                for (int j = 0; j < offer.matchedBids.size(); j++) {
+                    if (j != winningBid) addBid(offer.matchedBids.get(j));
+                }
                 // Remove this offer from the offers priority queue, offersPQ, underlying the record iterator
                 removeOfferFromQueues(record, offer);
+                offer.release();
 
             // If there is only one match...
             } else if (nBids == 1) {
                 // ...complete successful transaction and record it into the corresponding regionalHousingMarketStats
                 completeTransaction(offer.matchedBids.get(0), offer);
+                offer.matchedBids.get(0).release();
                 // ...remove this offer from the offers priority queue, offersPQ, underlying the record iterator
                 removeOfferFromQueues(record, offer);
+                offer.release();
             }
             // Note that we skip the whole process if there are no matches
         }        
@@ -248,4 +297,10 @@ public abstract class HousingMarket implements Serializable {
     protected HouseSaleRecord getBestOffer(HouseBuyerRecord bid) { return (HouseSaleRecord)offersPQ.peek(bid); }
 
     int getnHousesOnMarket() { return offersPQ.size(); }
+
+    public double getSumOfferPrices() { return sumOfferPrices; }
+
+    public double getSumBidPrices() { return sumBidPrices; }
+
+    public int getnConstructionOffers() { return nConstructionOffers; }
 }
@@ -7,12 +7,16 @@ import utilities.PriorityQueue2D;
 public abstract class HousingMarketRecord implements Serializable {
 	private static final long serialVersionUID = 942379254469390885L;
 	private double	price;
-	private int		id;	// in order to get a unique, repeatable ordering
-	static int 		id_pool = 0;
+	private int		id;	// in order to get a unique, repeatable ordering (dense id from Model.marketRecordRegistry)
 	
 	public HousingMarketRecord(double price) {
 		this.price = price;
-		id = id_pool++;
+		id = Model.marketRecordRegistry.register(this);
+	}
+
+	/*** release the id of this record once it has left the market (it can then be reused from the next time step) */
+	void release() {
+		Model.marketRecordRegistry.release(id, this);
 	}
 
 	// TODO: Check if we really need this to be abstract, or even to stay here
@@ -9,8 +9,11 @@ import java.util.Scanner;
 import java.time.Instant;
 
 import collectors.*;
+import utilities.EntityRegistry;
+import utilities.MersenneTwisterEngine;
+import utilities.RandomEngine;
+import utilities.Xoshiro256StarStar;
 
-import org.apache.commons.math3.random.MersenneTwister;
 import org.apache.commons.cli.*;
 import org.apache.commons.io.FileUtils;
 
@@ -50,17 +53,23 @@ public class Model {
     public static CentralBank		    centralBank;
     public static Bank 				    bank;
     public static ArrayList<Region>     geography;
-    public static MersenneTwister	    rand;
+    public static RandomEngine		    rand;
     public static CreditSupply          creditSupply;
     public static CoreIndicators        coreIndicators;
     public static HouseholdStats        householdStats;
     public static HousingMarketStats    housingMarketStats;
     public static RentalMarketStats     rentalMarketStats;
     public static MicroDataRecorder     transactionRecorder;
+    public static MemoryAccounting      memoryAccounting;
+    public static EntityRegistry<Household>             householdRegistry;
+    public static EntityRegistry<House>                 houseRegistry;
+    public static EntityRegistry<HousingMarketRecord>   marketRecordRegistry;
     public static int	                nSimulation; // To keep track of the simulation number
     public static int	                t; // To keep track of time (in months)
 
     static Government		            government;
+    static DecisionKernel               decisionKernel; // Batch evaluation of household decisions (null if not active)
+    static EquilibriumInitialiser       equilibriumInitialiser; // Start from and sampling of equilibrium profiles (null if not active)
 
     private static Recorder             recorder;
     private static String               configFileName;
@@ -82,7 +91,11 @@ public class Model {
     public Model(String configFileName, String outputFolder) {
         // TODO: Check that random numbers are working properly!
         config = new Config(configFileName);
-        rand = new MersenneTwister(config.SEED);
+        rand = newRandomEngine(config.RNG_ENGINE, config.SEED);
+        HouseholdBehaviour.setupDistributions();
+        householdRegistry = new EntityRegistry<>(config.TARGET_POPULATION);
+        houseRegistry = new EntityRegistry<>(config.TARGET_POPULATION);
+        marketRecordRegistry = new EntityRegistry<>(config.TARGET_POPULATION/4);
         geography = new ArrayList<>();
 
         for (int targetPopulation: data.Demographics.targetPopulationPerRegion) {
@@ -94,10 +107,15 @@ public class Model {
         construction = new Construction(geography);
         centralBank = new CentralBank();
         bank = new Bank();
+        if (config.BATCH_DECISIONS) decisionKernel = new DecisionKernel();
+        if (config.EQUILIBRIUM_INITIALISATION || config.EQUILIBRIUM_PROFILE_SAMPLING_START > 0) {
+            equilibriumInitialiser = new EquilibriumInitialiser(geography, outputFolder);
+        }
 
         recorder = new collectors.Recorder(outputFolder);
         transactionRecorder = new collectors.MicroDataRecorder(outputFolder);
         creditSupply = new collectors.CreditSupply(outputFolder);
+        memoryAccounting = new collectors.MemoryAccounting(outputFolder);
         coreIndicators = new collectors.CoreIndicators();
         householdStats = new collectors.HouseholdStats(geography);
         housingMarketStats = new collectors.HousingMarketStats(geography);
@@ -128,7 +146,8 @@ public class Model {
 		for (nSimulation = 1; nSimulation <= config.N_SIMS; nSimulation += 1) {
 
             // For each simulation, open files for writing single-run results
-            recorder.openSingleRunFiles(nSimulation);
+            recorder.openSingleRunFiles(config.recordGeneral, nSimulation);
+            if(memoryAccounting.isActive()) memoryAccounting.openNewFile();
 
 		    // For each simulation, initialise both houseSaleMarket and houseRentalMarket variables (including HPI)
             init();
@@ -142,7 +161,7 @@ public class Model {
 
 //                if (t >= config.TIME_TO_START_RECORDING) {
                     // Write results of this time step and run to both multi- and single-run files
-                    recorder.writeTimeStampResults(config.recordCoreIndicators, t);
+                    recorder.writeTimeStampResults(config.recordGeneral, config.recordCoreIndicators, t);
 //                }
 
                 // Print time information to screen
@@ -152,9 +171,11 @@ public class Model {
             }
 
 			// Finish each simulation within the recorders (closing single-run files, changing line in multi-run files)
-            recorder.finishRun(config.recordCoreIndicators);
+            recorder.finishRun(config.recordGeneral, config.recordCoreIndicators);
             // TODO: Check what this is actually doing and if it is necessary
             if(config.recordMicroData) transactionRecorder.endOfSim();
+            if(memoryAccounting.isActive()) memoryAccounting.endOfSim();
+            if(equilibriumInitialiser != null) equilibriumInitialiser.endOfSim();
 		}
 
         // After the last simulation, clean up
@@ -167,32 +188,70 @@ public class Model {
 		System.exit(0);
 	}
 
+    /**
+     * @param engine Name of the random number generator engine, as given by RNG_ENGINE
+     * @param seed Seed for the random number generator
+     * @return New random number generator of the given engine
+     */
+    private static RandomEngine newRandomEngine(String engine, int seed) {
+        switch (engine) {
+            case "XOSHIRO256":
+                return new Xoshiro256StarStar(seed);
+            case "MT19937":
+                return new MersenneTwisterEngine(seed);
+            default:
+                throw new IllegalArgumentException("Unknown RNG_ENGINE " + engine
+                        + ", expected either XOSHIRO256 or MT19937");
+        }
+    }
+
 	private static void setupStatics() {
-        setRecordGeneral();
+        setRecordGeneral(config.recordGeneral);
 		setRecordCoreIndicators(config.recordCoreIndicators);
 		setRecordMicroData(config.recordMicroData);
+        memoryAccounting.setActive(config.getMemoryAccountingPeriod() > 0);
 	}
 
 	private static void init() {
+        // Time starts from zero again for each simulation, so that any initial contracts are set up at month zero
+        t = 0;
+        // Ids of households, houses and market records are assigned from zero again for each simulation
+        householdRegistry.clear();
+        houseRegistry.clear();
+        marketRecordRegistry.clear();
         demographics.init();
 		construction.init();
 		bank.init();
+        if (decisionKernel != null) decisionKernel.init();
 		housingMarketStats.init();
 		rentalMarketStats.init();
         for(Region r : geography) r.init();
+        if (equilibriumInitialiser != null) {
+            equilibriumInitialiser.init();
+            // Start from a near-stationary population instead of from an empty model (only if active)
+            if (config.EQUILIBRIUM_INITIALISATION) equilibriumInitialiser.populate();
+        }
 	}
 
 	private static void modelStep() {
+        // Make ids released during the previous time step available again
+        householdRegistry.reclaimReleasedIds();
+        houseRegistry.reclaimReleasedIds();
+        marketRecordRegistry.reclaimReleasedIds();
         // Update population with births and deaths in each region
         demographics.step();
         // Update number of houses in each region
         construction.step();
         // Update, for each region, its households, market statistics collectors and markets
         for(Region r : geography) r.step();
+        // End mortgage contracts that have made their last payment this month
+        bank.endMaturedMortgages();
         // Update all sale market statistics by collecting and aggregating results from the regions
         housingMarketStats.collectRegionalRecords();
         // Update all rental market statistics by collecting and aggregating results from the regions
         rentalMarketStats.collectRegionalRecords();
+        // Mortgage quotes for buy-to-let depend on the national rental yield just recorded
+        bank.invalidateQuotes();
         // Update all household statistics by collecting and aggregating results from the regions
         householdStats.collectRegionalRecords();
         // Update all credit supply statistics // TODO: Check what this actually does and if it should go elsewhere!
@@ -201,6 +260,10 @@ public class Model {
 		bank.step(demographics.getTotalPopulation());
         // Update central bank policies (currently empty!)
 		centralBank.step(coreIndicators);
+        // Report memory retained by households, houses, mortgages and offers (only if active)
+        memoryAccounting.step();
+        // Sample the population for the equilibrium profile (only if active)
+        if (equilibriumInitialiser != null) equilibriumInitialiser.step();
 	}
 
     /**
@@ -319,11 +382,11 @@ public class Model {
 		return t%12 + 1;
 	}
 
-    private static void setRecordGeneral() {
-        creditSupply.setActive(true);
-        householdStats.setActive(true);
-        housingMarketStats.setActive(true);
-        rentalMarketStats.setActive(true);
+    private static void setRecordGeneral(boolean recordGeneral) {
+        creditSupply.setActive(recordGeneral);
+        householdStats.setActive(recordGeneral);
+        housingMarketStats.setActive(recordGeneral);
+        rentalMarketStats.setActive(recordGeneral);
     }
 
 	private static void setRecordCoreIndicators(boolean recordCoreIndicators) {
@@ -1,30 +1,79 @@
 package housing;
 
+/****************************************************
+ * Mortgage contract. The outstanding principal is not updated with every monthly payment,
+ * but brought up to date on demand, given the principal, number of payments left and month
+ * at the last time the terms of the mortgage were set (at origination or after an early
+ * repayment), together with the fixed interest rate and monthly payment. The months missed
+ * since the last time the principal was read are then applied one by one, with the same
+ * monthly recursion P*(1+r) - M as a payment made every month, so that the principal is
+ * exactly the same, to the last bit. Once all payments have been made, any principal left
+ * (such as that of interest-only mortgages) keeps accruing interest every month, as long
+ * as the mortgage is held.
+ *
+ * Months count as paid once the region of the borrower has stepped its households, so
+ * that the principal read before the borrower's payment for the current month (e.g., by
+ * the demographics) does not include it yet.
+ ***************************************************/
 public class MortgageAgreement extends PaymentAgreement {
 	private static final long serialVersionUID = -1610029355056926296L;
 	public double	downPayment;
 	public double	purchasePrice;
 	public final boolean	isBuyToLet;
 	public final boolean	isFirstTimeBuyer;
-	public double	principal;			// remaining principal to be paid off
 	public double 	monthlyInterestRate;
 
+	private final Region	region;			// region of the borrower, whose steps mark the months paid
+	double	basePrincipal;		// principal at the base month
+	int		basePayments;		// number of payments left at the base month
+	int		baseTime;			// last month paid when the terms were last set
+	private double	principal;		// principal after the payments of all months up to principalTime
+	private int		principalTime;		// last month paid when the principal was last brought up to date
+	int		ledgerSlot = -1;	// slot at the bank's mortgage ledger, -1 if not registered
+	int		maturityTime = -1;	// month of the bank's maturity schedule this mortgage is in, -1 if not scheduled
+
 	public MortgageAgreement(Household borrower, boolean isBuyToLet) {
 		this.isBuyToLet = isBuyToLet;
 		this.isFirstTimeBuyer = !isBuyToLet && borrower.isFirstTimeBuyer();
+		this.region = borrower.getRegion();
 	}
 
-	/********************************************
-	 * Updates internal variables to simulate a payment
-	 * being made (Does not move any assets from payer to payee).
-	 * 
-	 * @return The amount of the payment
-	 ********************************************/
-	public double makeMonthlyPayment() {
-		double payment = super.makeMonthlyPayment();
-		principal = principal*(1.0 + monthlyInterestRate) - payment;
-		if(nPayments == 0) Model.bank.endMortgageContract(this);
-		return payment;
+	/*******************************************
+	 * Set the principal to be paid off, taking the
+	 * current number of payments left, monthly
+	 * payment and interest rate as the terms of the
+	 * mortgage from now on.
+	 *
+	 * @param principal Principal to be paid off
+	 *******************************************/
+	public void setPrincipal(double principal) {
+		basePrincipal = principal;
+		basePayments = nPayments;
+		baseTime = region.getStepTime();
+		this.principal = principal;
+		principalTime = baseTime;
+		if(ledgerSlot >= 0) Model.bank.mortgages.update(this);
+	}
+
+	/*******************************************
+	 * @return True if the mortgage is still in the
+	 * bank's ledger of unpaid mortgages
+	 *******************************************/
+	public boolean isRegistered() { return ledgerSlot >= 0; }
+
+	/*******************************************
+	 * @return Remaining principal to be paid off, after
+	 * the payments of all months paid so far
+	 *******************************************/
+	public double getPrincipal() {
+		int time = region.getStepTime();
+		if(time <= principalTime || basePrincipal == 0.0) return principal;
+		for(int month = principalTime + 1; month <= time; ++month) {
+			double payment = (month - baseTime <= basePayments) ? monthlyPayment : 0.0;
+			principal = principal*(1.0 + monthlyInterestRate) - payment;
+		}
+		principalTime = time;
+		return principal;
 	}
 
 	/*******************************************
@@ -35,18 +84,19 @@ public class MortgageAgreement extends PaymentAgreement {
 	 * @return Amount that was actually payed off.
 	 *******************************************/
 	public double payoff(double amount) {
+		double principal = getPrincipal();
 		if(amount >= principal) {
-			principal = 0.0;
 			monthlyPayment = 0.0;
 			nPayments = 0;
 			Model.bank.endMortgageContract(this);
-			return(principal);
+			setPrincipal(0.0);
+			return(0.0);
 		}
 		monthlyPayment *= (principal-amount)/principal;
-		principal -= amount;
+		setPrincipal(principal - amount);
 		return amount;
 	}
 
-	public double payoff() { return payoff(principal); }
+	public double payoff() { return payoff(getPrincipal()); }
 
 }
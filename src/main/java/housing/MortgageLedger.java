@@ -0,0 +1,277 @@
+package housing;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**************************************************************************************************
+ * Class to keep the ledger of all unpaid mortgage contracts supplied by the bank, with the terms of
+ * each mortgage (as last set, at origination or after an early repayment) stored in flat primitive
+ * arrays, one slot per mortgage. Slots freed by mortgages paid off or matured are reused by new
+ * ones, so the table only grows with the maximum number of mortgages outstanding at any time.
+ * Portfolio-wide queries can then be answered with simple loops over these arrays, instead of
+ * following object references mortgage by mortgage.
+ *
+ * Besides, the outstanding principals of owner-occupier and buy-to-let mortgages are kept up to
+ * date as loans are issued, amortised and paid off. All mortgages issued at the same interest rate
+ * (in practice, all those issued within the same month) are gathered in a rate group, for which
+ * the sum of principals follows the annuity formula in closed form, P(t) = A*(1+r)^t + C, with the
+ * coefficients A and C of the group updated only when its mortgages are added, re-based or
+ * removed. Total outstanding principals are thus computed in time proportional to the number of
+ * distinct interest rates outstanding, regardless of the number of mortgages. Note that these
+ * totals only match the sum of the principals of the individual mortgages (which follow the
+ * monthly recursion exactly) up to rounding errors in the last bits, and are thus used for
+ * reporting only, never for decisions.
+ *
+ *************************************************************************************************/
+public class MortgageLedger implements Serializable {
+    private static final long serialVersionUID = 7460412297263624138L;
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final int        OO = 0; // Index of owner-occupier mortgages in the rate group sums
+    private static final int        BTL = 1; // Index of buy-to-let mortgages in the rate group sums
+
+    private MortgageAgreement []    agreement; // Mortgage in each slot, null for free slots
+    private double []               principal; // Principal at the base month
+    private double []               monthlyPayment;
+    private double []               monthlyRate;
+    private int []                  baseTime; // Month at which the terms were last set
+    private int []                  nPayments; // Number of payments left at the base month
+    private boolean []              isBuyToLet;
+    private boolean []              isFirstTimeBuyer;
+    private RateGroup []            group; // Rate group of the mortgage in each slot
+    private int []                  freeSlots; // Stack of free slots below the high-water mark
+    private int                     nFreeSlots;
+    private int                     nSlots; // High-water mark of used slots
+    private int                     size; // Number of mortgages in the ledger
+
+    private HashMap<Double, RateGroup> groupsByRate = new HashMap<>();
+    private ArrayList<RateGroup>    groups = new ArrayList<>();
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    MortgageLedger() {
+        int initialCapacity = 1024;
+        agreement = new MortgageAgreement[initialCapacity];
+        principal = new double[initialCapacity];
+        monthlyPayment = new double[initialCapacity];
+        monthlyRate = new double[initialCapacity];
+        baseTime = new int[initialCapacity];
+        nPayments = new int[initialCapacity];
+        isBuyToLet = new boolean[initialCapacity];
+        isFirstTimeBuyer = new boolean[initialCapacity];
+        group = new RateGroup[initialCapacity];
+        freeSlots = new int[initialCapacity];
+        clear();
+    }
+
+    //----------------------//
+    //----- Subclasses -----//
+    //----------------------//
+
+    /**
+     * Sums of the closed-form coefficients of all mortgages with the same monthly interest rate, for owner-occupier
+     * and buy-to-let mortgages separately. For a non-zero rate r, the principal of a mortgage with principal B and
+     * monthly payment M at month t0 is, at month t within its term, (B - M/r)*(1+r)^(t - t0) + M/r, which is added
+     * as A = (B - M/r)*(1+r)^(refTime - t0) and C = M/r, to be evaluated as A*(1+r)^(t - refTime) + C. For a zero
+     * rate, the principal is B - (t - t0)*M, added as A = B + (t0 - refTime)*M and C = M, to be evaluated as
+     * A - (t - refTime)*C.
+     */
+    private static class RateGroup implements Serializable {
+        private static final long serialVersionUID = -2370962846513040851L;
+        final double    rate;
+        final int       refTime; // Reference month, to keep the powers of (1+r) close to one
+        double []       sumA = new double[2];
+        double []       sumC = new double[2];
+        int             size;
+
+        RateGroup(double rate, int refTime) {
+            this.rate = rate;
+            this.refTime = refTime;
+        }
+
+        double principalAt(int t, int type) {
+            if (rate == 0.0) return sumA[type] - (t - refTime)*sumC[type];
+            return sumA[type]*Math.exp((t - refTime)*Math.log1p(rate)) + sumC[type];
+        }
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Remove all mortgages from the ledger (to be called at the beginning of each simulation)
+     */
+    void clear() {
+        for (int i = 0; i < nSlots; i++) {
+            if (agreement[i] != null) agreement[i].ledgerSlot = -1;
+        }
+        Arrays.fill(agreement, 0, nSlots, null);
+        Arrays.fill(group, 0, nSlots, null);
+        nFreeSlots = 0;
+        nSlots = 0;
+        size = 0;
+        groupsByRate.clear();
+        groups.clear();
+    }
+
+    /**
+     * Add a newly signed mortgage to the ledger
+     *
+     * @param mortgage The new mortgage
+     */
+    void add(MortgageAgreement mortgage) {
+        if (mortgage.ledgerSlot >= 0) return;
+        int slot;
+        if (nFreeSlots > 0) {
+            slot = freeSlots[--nFreeSlots];
+        } else {
+            if (nSlots == agreement.length) grow();
+            slot = nSlots++;
+        }
+        agreement[slot] = mortgage;
+        isBuyToLet[slot] = mortgage.isBuyToLet;
+        isFirstTimeBuyer[slot] = mortgage.isFirstTimeBuyer;
+        mortgage.ledgerSlot = slot;
+        setTerms(slot, mortgage);
+        size++;
+    }
+
+    /**
+     * Update the terms of a mortgage in the ledger, after these have been re-based by an early repayment
+     *
+     * @param mortgage The mortgage whose terms have changed
+     */
+    void update(MortgageAgreement mortgage) {
+        int slot = mortgage.ledgerSlot;
+        if (slot < 0) return;
+        removeFromGroup(slot);
+        setTerms(slot, mortgage);
+    }
+
+    /**
+     * Remove a mortgage from the ledger, once paid off or matured
+     *
+     * @param mortgage The mortgage to remove
+     */
+    void remove(MortgageAgreement mortgage) {
+        int slot = mortgage.ledgerSlot;
+        if (slot < 0) return;
+        removeFromGroup(slot);
+        agreement[slot] = null;
+        group[slot] = null;
+        mortgage.ledgerSlot = -1;
+        freeSlots[nFreeSlots++] = slot;
+        size--;
+    }
+
+    private void setTerms(int slot, MortgageAgreement mortgage) {
+        principal[slot] = mortgage.basePrincipal;
+        monthlyPayment[slot] = mortgage.monthlyPayment;
+        monthlyRate[slot] = mortgage.monthlyInterestRate;
+        baseTime[slot] = mortgage.baseTime;
+        nPayments[slot] = mortgage.basePayments;
+        RateGroup g = groupsByRate.get(monthlyRate[slot]);
+        if (g == null) {
+            g = new RateGroup(monthlyRate[slot], baseTime[slot]);
+            groupsByRate.put(g.rate, g);
+            groups.add(g);
+        }
+        int type = isBuyToLet[slot] ? BTL : OO;
+        g.sumA[type] += coefficientA(slot, g);
+        g.sumC[type] += coefficientC(slot, g);
+        g.size++;
+        group[slot] = g;
+    }
+
+    private void removeFromGroup(int slot) {
+        RateGroup g = group[slot];
+        if (--g.size == 0) {
+            // Drop empty groups, so that no rounding residue is left behind
+            groupsByRate.remove(g.rate);
+            groups.remove(g);
+        } else {
+            int type = isBuyToLet[slot] ? BTL : OO;
+            g.sumA[type] -= coefficientA(slot, g);
+            g.sumC[type] -= coefficientC(slot, g);
+        }
+    }
+
+    private double coefficientA(int slot, RateGroup g) {
+        if (g.rate == 0.0) return principal[slot] + (baseTime[slot] - g.refTime)*monthlyPayment[slot];
+        return (principal[slot] - monthlyPayment[slot]/g.rate)*Math.exp((g.refTime - baseTime[slot])*Math.log1p(g.rate));
+    }
+
+    private double coefficientC(int slot, RateGroup g) {
+        if (g.rate == 0.0) return monthlyPayment[slot];
+        return monthlyPayment[slot]/g.rate;
+    }
+
+    private void grow() {
+        int newCapacity = 2*agreement.length;
+        agreement = Arrays.copyOf(agreement, newCapacity);
+        principal = Arrays.copyOf(principal, newCapacity);
+        monthlyPayment = Arrays.copyOf(monthlyPayment, newCapacity);
+        monthlyRate = Arrays.copyOf(monthlyRate, newCapacity);
+        baseTime = Arrays.copyOf(baseTime, newCapacity);
+        nPayments = Arrays.copyOf(nPayments, newCapacity);
+        isBuyToLet = Arrays.copyOf(isBuyToLet, newCapacity);
+        isFirstTimeBuyer = Arrays.copyOf(isFirstTimeBuyer, newCapacity);
+        group = Arrays.copyOf(group, newCapacity);
+        freeSlots = Arrays.copyOf(freeSlots, newCapacity);
+    }
+
+    //----- Portfolio-wide queries -----//
+
+    /**
+     * Total outstanding principal, once all households have made their payments for the current month. Mortgages stay
+     * in the ledger until their last payment at most, so all of them are within their term.
+     *
+     * @param buyToLet True for buy-to-let mortgages, false for owner-occupier mortgages
+     * @return Sum of the principals of all mortgages of the given type
+     */
+    public double getTotalPrincipal(boolean buyToLet) {
+        int t = Model.getTime();
+        int type = buyToLet ? BTL : OO;
+        double total = 0.0;
+        for (RateGroup g : groups) total += g.principalAt(t, type);
+        return total;
+    }
+
+    /**
+     * @param buyToLet True for buy-to-let mortgages, false for owner-occupier mortgages
+     * @return Sum of the monthly payments of all mortgages of the given type with payments left
+     */
+    public double getTotalMonthlyPayments(boolean buyToLet) {
+        int t = Model.getTime();
+        double total = 0.0;
+        for (int i = 0; i < nSlots; i++) {
+            if (agreement[i] != null && isBuyToLet[i] == buyToLet && t - baseTime[i] < nPayments[i]) {
+                total += monthlyPayment[i];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return Number of first-time buyer mortgages in the ledger
+     */
+    public int countFirstTimeBuyer() {
+        int n = 0;
+        for (int i = 0; i < nSlots; i++) if (agreement[i] != null && isFirstTimeBuyer[i]) n++;
+        return n;
+    }
+
+    //----- Getter/setter methods -----//
+
+    public int size() { return size; }
+    public int getCapacity() { return agreement.length; }
+    public int getNumberOfRateGroups() { return groups.size(); }
+}
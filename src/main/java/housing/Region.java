@@ -4,6 +4,8 @@ import collectors.RegionalHouseholdStats;
 import collectors.RegionalHousingMarketStats;
 import collectors.RegionalRentalMarketStats;
 
+import utilities.CalendarQueue;
+
 import java.util.ArrayList;
 
 /**************************************************************************************************
@@ -26,6 +28,11 @@ public class Region {
     public RegionalHouseholdStats       regionalHouseholdStats;
     public RegionalHousingMarketStats   regionalHousingMarketStats;
     public RegionalRentalMarketStats    regionalRentalMarketStats;
+    CalendarQueue<Household>            deathQueue; // Scheduled deaths of the households in the region (null if not active)
+    ArrayList<Household>                activeHouseholds; // Households stepped each month, i.e., not dormant (null if not active)
+    private CalendarQueue<Household>    wakeQueue; // Scheduled wake-ups of dormant households (null if not active)
+    private ArrayList<Household>        wokenHouseholds; // Scratch list for the households due to wake up
+    private int                         stepTime; // Last month for which the households of the region have been stepped
     public int                          targetPopulation;
     private int                         housingStock;
 
@@ -50,6 +57,14 @@ public class Region {
         regionalHouseholdStats = new RegionalHouseholdStats(this);
         regionalHousingMarketStats = new RegionalHousingMarketStats(houseSaleMarket);
         regionalRentalMarketStats = new RegionalRentalMarketStats(regionalHousingMarketStats, houseRentalMarket);
+        // Households are rarely scheduled to die more than about 85 years (1020 months) after they are born
+        if (Model.config.EVENT_DRIVEN_DEATHS) deathQueue = new CalendarQueue<>(1024);
+        // Dormant owner-occupiers wake up at their next candidate month to sell, on average HOLD_PERIOD years ahead
+        if (Model.config.LAZY_DORMANT_HOUSEHOLDS) {
+            activeHouseholds = new ArrayList<>(targetPopulation*2);
+            wakeQueue = new CalendarQueue<>(256);
+            wokenHouseholds = new ArrayList<>();
+        }
     }
 
     //-------------------//
@@ -63,12 +78,34 @@ public class Region {
         regionalHousingMarketStats.init();
         regionalRentalMarketStats.init();
         regionalHouseholdStats.init();
+        if (deathQueue != null) deathQueue.clear(-1);
+        if (activeHouseholds != null) {
+            activeHouseholds.clear();
+            wakeQueue.clear(-1);
+        }
+        stepTime = -1;
         housingStock = 0;
     }
 
     public void step() {
+        stepTime = Model.getTime();
+        // In lazy households mode, only households that are not dormant are stepped
+        ArrayList<Household> steppedHouseholds = households;
+        if (activeHouseholds != null) {
+            wakeDueHouseholds();
+            steppedHouseholds = activeHouseholds;
+        }
         // Updates regional households consumption, housing decisions, and corresponding regional bids and offers
-        for(Household h : households) h.step();
+        if (Model.decisionKernel != null) {
+            // In batch decisions mode, all households update their finances, then the decisions to sell and to
+            // buy-to-let are evaluated for the whole region, and finally all households act on them
+            for(Household h : steppedHouseholds) h.stepFinances();
+            Model.decisionKernel.evaluate(this);
+            for(Household h : steppedHouseholds) h.stepDecisions();
+        } else {
+            for(Household h : steppedHouseholds) h.step();
+        }
+        if (activeHouseholds != null) sendIdleHouseholdsToSleep();
         // Stores regional sale market bid and offer prices and averages before bids are matched by clearing the market
         regionalHousingMarketStats.preClearingRecord();
         // Clears regional sale market and updates the HPI
@@ -85,8 +122,48 @@ public class Region {
         regionalHouseholdStats.record();
     }
 
+    /**
+     * Add the dormant households due to wake up this month to the active households, and drop from these the households
+     * that have died since the last step
+     */
+    private void wakeDueHouseholds() {
+        wakeQueue.collectDue(stepTime, wokenHouseholds);
+        for (Household h : wokenHouseholds) {
+            if (h.wakeIfDue(stepTime)) activeHouseholds.add(h);
+        }
+        wokenHouseholds.clear();
+        int nActive = 0;
+        for (Household h : activeHouseholds) {
+            if (h.isAlive()) activeHouseholds.set(nActive++, h);
+        }
+        activeHouseholds.subList(nActive, activeHouseholds.size()).clear();
+    }
+
+    /**
+     * Remove from the active households those that, after their step, have nothing to do until a known future month,
+     * scheduling their wake-up for that month
+     */
+    private void sendIdleHouseholdsToSleep() {
+        int nActive = 0;
+        for (Household h : activeHouseholds) {
+            int wakeTime = h.goDormantIfIdle();
+            if (wakeTime < 0) {
+                activeHouseholds.set(nActive++, h);
+            } else {
+                wakeQueue.schedule(wakeTime, h);
+            }
+        }
+        activeHouseholds.subList(nActive, activeHouseholds.size()).clear();
+    }
+
     //----- Getter/setter methods -----//
 
+    /**
+     * @return Last month for which the households of the region have been stepped (the current month once the step of
+     * the region has started)
+     */
+    int getStepTime() { return stepTime; }
+
     public int getTargetPopulation() { return targetPopulation; }
 
     public int getHousingStock() { return housingStock; }
@@ -24,7 +24,11 @@ public class BinnedData<DATA> extends ArrayList<DATA> {
 
 
 	public DATA getBinAt(double val) {
-		return(get((int)((val-firstBinMin)/binWidth)));
+		return(get(getBinIndexAt(val)));
+	}
+
+	public int getBinIndexAt(double val) {
+		return((int)((val-firstBinMin)/binWidth));
 	}
 	
 	public void setBinWidth(double width) {
@@ -0,0 +1,160 @@
+package utilities;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**************************************************************************************************
+ * Calendar queue (hashed timing wheel) of events scheduled for integer times, such as months.
+ * Events are stored in the bucket given by their time modulo the number of buckets, so scheduling
+ * an event is O(1) and collecting the events due at a given time only looks at the buckets of the
+ * times elapsed since the last collection. Events scheduled further ahead than the number of
+ * buckets simply stay in their bucket until their time comes, so the wheel should be sized to
+ * cover most scheduling horizons.
+ *
+ * Events due at the same time are returned in the order in which they were scheduled. Events can
+ * also be cancelled before they are due, at the cost of a scan of their bucket.
+ *
+ *************************************************************************************************/
+public class CalendarQueue<E> implements Serializable {
+    private static final long serialVersionUID = 4260391838610582297L;
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private int [][]    times; // Due times of the events in each bucket
+    private Object [][] events; // Events in each bucket
+    private int []      bucketSizes;
+    private int         mask; // Number of buckets minus one, the number of buckets being a power of two
+    private int         lastTime; // Last time for which due events were collected
+    private int         size;
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    /**
+     * @param horizon Typical number of time steps ahead events are scheduled for (rounded up to a power of two)
+     */
+    public CalendarQueue(int horizon) {
+        int nBuckets = Integer.highestOneBit(Math.max(2, horizon - 1)) << 1;
+        mask = nBuckets - 1;
+        times = new int[nBuckets][];
+        events = new Object[nBuckets][];
+        bucketSizes = new int[nBuckets];
+        clear(-1);
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Remove all events
+     *
+     * @param lastTime Time for which due events are considered already collected (events will be collected from the
+     *                 next time on)
+     */
+    public void clear(int lastTime) {
+        for (int i = 0; i <= mask; i++) {
+            if (bucketSizes[i] > 0) Arrays.fill(events[i], 0, bucketSizes[i], null);
+            bucketSizes[i] = 0;
+        }
+        this.lastTime = lastTime;
+        size = 0;
+    }
+
+    /**
+     * Schedule an event. Events scheduled for a time for which due events were already collected will be collected the
+     * next time
+     *
+     * @param time Time at which the event is due
+     * @param event Event to schedule
+     * @return Time for which the event was actually scheduled, needed to cancel it
+     */
+    public int schedule(int time, E event) {
+        if (time <= lastTime) time = lastTime + 1;
+        int bucket = time & mask;
+        int n = bucketSizes[bucket];
+        if (times[bucket] == null) {
+            times[bucket] = new int[4];
+            events[bucket] = new Object[4];
+        } else if (n == times[bucket].length) {
+            times[bucket] = Arrays.copyOf(times[bucket], 2*n);
+            events[bucket] = Arrays.copyOf(events[bucket], 2*n);
+        }
+        times[bucket][n] = time;
+        events[bucket][n] = event;
+        bucketSizes[bucket] = n + 1;
+        size++;
+        return time;
+    }
+
+    /**
+     * Remove a scheduled event before it is due, so that the queue no longer holds a reference to it. Events due at the
+     * same time keep their order
+     *
+     * @param time Time for which the event was scheduled, as returned by schedule
+     * @param event Event to remove (compared by identity)
+     * @return False if the event was not found among those scheduled for that time
+     */
+    public boolean cancel(int time, E event) {
+        int bucket = time & mask;
+        int [] bucketTimes = times[bucket];
+        Object [] bucketEvents = events[bucket];
+        int n = bucketSizes[bucket];
+        for (int i = 0; i < n; i++) {
+            if (bucketEvents[i] == event && bucketTimes[i] == time) {
+                System.arraycopy(bucketTimes, i + 1, bucketTimes, i, n - i - 1);
+                System.arraycopy(bucketEvents, i + 1, bucketEvents, i, n - i - 1);
+                bucketEvents[n - 1] = null;
+                bucketSizes[bucket] = n - 1;
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Remove all events due up to (and including) a given time and add them to a collection, in order of due time
+     *
+     * @param time Current time
+     * @param due Collection to add the due events to
+     */
+    @SuppressWarnings("unchecked")
+    public void collectDue(int time, Collection<? super E> due) {
+        for (int t = lastTime + 1; t <= time; t++) {
+            int bucket = t & mask;
+            int [] bucketTimes = times[bucket];
+            Object [] bucketEvents = events[bucket];
+            int n = bucketSizes[bucket];
+            int nKept = 0;
+            for (int i = 0; i < n; i++) {
+                if (bucketTimes[i] <= t) {
+                    due.add((E)bucketEvents[i]);
+                    size--;
+                } else {
+                    bucketTimes[nKept] = bucketTimes[i];
+                    bucketEvents[nKept++] = bucketEvents[i];
+                }
+            }
+            if (n > 0) Arrays.fill(bucketEvents, nKept, n, null);
+            bucketSizes[bucket] = nKept;
+        }
+        lastTime = Math.max(lastTime, time);
+    }
+
+    //----- Getter/setter methods -----//
+
+    /**
+     * @return Number of scheduled events
+     */
+    public int size() { return size; }
+
+    /**
+     * @return Last time for which due events were collected
+     */
+    public int getLastTime() { return lastTime; }
+}
@@ -0,0 +1,156 @@
+package utilities;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**************************************************************************************************
+ * Class to assign dense, recyclable integer ids to the entities of a simulation (households,
+ * houses, market records...), so that per-entity data can be kept in flat arrays indexed by id.
+ * Lookups by id are O(1) and live entities can be iterated in increasing id order.
+ *
+ * Ids released during a time step are not handed out again until reclaimReleasedIds() is called,
+ * which the model does at the beginning of each time step. This way, an entity that is released
+ * while still referenced within the same step (for example, a market record that is taken off
+ * one queue before being removed from another) can never share its id with a newer entity.
+ *
+ *************************************************************************************************/
+public class EntityRegistry<E> implements Iterable<E>, Serializable {
+    private static final long serialVersionUID = 2719381262207440112L;
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private Object []   entities; // Entities indexed by their id, null for unused ids
+    private int []      freeIds; // Stack of ids available for reuse
+    private int         nFreeIds;
+    private int []      releasedIds; // Ids released during the current time step, not yet available for reuse
+    private int         nReleasedIds;
+    private int         capacity; // Number of ids ever handed out, i.e., one more than the highest id in use
+    private int         size; // Number of live entities
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    /**
+     * @param initialCapacity Initial number of ids to allocate space for (the registry grows as needed)
+     */
+    public EntityRegistry(int initialCapacity) {
+        initialCapacity = Math.max(16, initialCapacity);
+        entities = new Object[initialCapacity];
+        freeIds = new int[16];
+        releasedIds = new int[16];
+        clear();
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Remove all entities and start assigning ids from zero again (to be called at the beginning of each simulation)
+     */
+    public void clear() {
+        Arrays.fill(entities, 0, capacity, null);
+        nFreeIds = 0;
+        nReleasedIds = 0;
+        capacity = 0;
+        size = 0;
+    }
+
+    /**
+     * Register a new entity, assigning it the most recently reclaimed free id or, if there are none, a new one
+     *
+     * @param entity Entity to register
+     * @return Id assigned to the entity
+     */
+    public int register(E entity) {
+        int id;
+        if (nFreeIds > 0) {
+            id = freeIds[--nFreeIds];
+        } else {
+            if (capacity == entities.length) entities = Arrays.copyOf(entities, 2*capacity);
+            id = capacity++;
+        }
+        entities[id] = entity;
+        size++;
+        return id;
+    }
+
+    /**
+     * Release the id of an entity that is no longer part of the simulation. Releasing an entity that is not (or no
+     * longer) registered under the given id is harmless, so that entities with several exit paths do not need to keep
+     * track of whether they were already released
+     *
+     * @param id Id of the entity to release
+     * @param entity Entity to release
+     */
+    public void release(int id, E entity) {
+        if (id < 0 || id >= capacity || entities[id] != entity) return;
+        entities[id] = null;
+        size--;
+        if (nReleasedIds == releasedIds.length) releasedIds = Arrays.copyOf(releasedIds, 2*nReleasedIds);
+        releasedIds[nReleasedIds++] = id;
+    }
+
+    /**
+     * Make all ids released since the last call available for reuse
+     */
+    public void reclaimReleasedIds() {
+        if (nFreeIds + nReleasedIds > freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, Math.max(2*freeIds.length, nFreeIds + nReleasedIds));
+        }
+        System.arraycopy(releasedIds, 0, freeIds, nFreeIds, nReleasedIds);
+        nFreeIds += nReleasedIds;
+        nReleasedIds = 0;
+    }
+
+    //----- Getter/setter methods -----//
+
+    /**
+     * @param id Id of the entity
+     * @return Entity with the given id, or null if the id is not in use
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int id) { return (E)entities[id]; }
+
+    /**
+     * @return Number of live entities
+     */
+    public int size() { return size; }
+
+    /**
+     * @return Upper bound (exclusive) of the ids in use, to be used for sizing arrays indexed by id
+     */
+    public int getCapacity() { return capacity; }
+
+    /**
+     * @return Iterator over the live entities, in increasing order of their ids
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int next = advance(0);
+
+            private int advance(int from) {
+                while (from < capacity && entities[from] == null) from++;
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() { return next < capacity; }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (next >= capacity) throw new NoSuchElementException();
+                E entity = (E)entities[next];
+                next = advance(next + 1);
+                return entity;
+            }
+        };
+    }
+}
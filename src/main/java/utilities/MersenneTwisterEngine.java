@@ -0,0 +1,15 @@
+package utilities;
+
+import org.apache.commons.math3.random.MersenneTwister;
+
+/**************************************************************************************************
+ * Mersenne Twister (MT19937) engine, exactly as implemented in commons-math, which was the only
+ * random number generator of the model before engines were made pluggable. Keep using it to
+ * reproduce results obtained with earlier versions of the model.
+ *
+ *************************************************************************************************/
+public class MersenneTwisterEngine extends MersenneTwister implements RandomEngine {
+    private static final long serialVersionUID = -4918623501725270458L;
+
+    public MersenneTwisterEngine(int seed) { super(seed); }
+}
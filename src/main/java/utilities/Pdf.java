@@ -3,8 +3,6 @@ package utilities;
 import java.io.IOException;
 import java.io.Serializable;
 
-import org.apache.commons.math3.random.MersenneTwister;
-
 import housing.Model;
 
 // import java.util.function.DoubleUnaryOperator; // not compatible with Java 1.7
@@ -138,6 +136,7 @@ public class Pdf implements Serializable {
 		int i;
 
 		inverseCDF = new double[nSamples];
+		fastInverseCDF = null;
 		dx = (end-start)/INTEGRATION_STEPS;
 		x = start + dx/2.0;
 		cp = 0.0;
@@ -173,12 +172,43 @@ public class Pdf implements Serializable {
 //		return((1.0-remainder)*inverseCDF[i] + remainder*inverseCDF[i+1]);
 	}
 
-	private MersenneTwister	rand = Model.rand;	// Passes the Model's random number generator to a private field
+	/***
+	 * Sample from the PDF using a single 32-bit random number: the highest
+	 * FAST_TABLE_BITS bits select an interval of a high-resolution table of the
+	 * inverse CDF and the remaining bits the position within the interval. This
+	 * takes half the random bits of nextDouble() and no division or bounds
+	 * check, while the table, built on first use from the inverse CDF, is fine
+	 * enough for samples to follow the same distribution.
+	 * @return A random sample from the PDF
+	 */
+	public double nextDoubleFast() {
+		if(fastInverseCDF == null) initFastInverseCDF();
+		int bits = rand.nextInt();
+		int i = bits >>> (32 - FAST_TABLE_BITS);
+		double remainder = (bits & FAST_REMAINDER_MASK)*FAST_REMAINDER_SCALE;
+		return((1.0-remainder)*fastInverseCDF[i] + remainder*fastInverseCDF[i+1]);
+	}
+
+	private void initFastInverseCDF() {
+		int nPoints = 1 << FAST_TABLE_BITS;
+		double [] table = new double[nPoints + 1];
+		for(int i=0; i<nPoints; ++i) {
+			table[i] = inverseCumulativeProbability((double)i/nPoints);
+		}
+		table[nPoints] = end;
+		fastInverseCDF = table;
+	}
+
+	private RandomEngine	rand = Model.rand;	// Passes the Model's random number generator to a private field
 	DoubleUnaryOperator				pdf;				// function that gives the pdf
 	public double					start;				// lowest value of x that has a non-zero probability
 	public double					end;				// highest value of x that has a non-zero probability
 	double []						inverseCDF;			// pre-computed equi-spaced points on the inverse CDF including 0 and 1
 	double 							dx;					// dx between samples
 	int								nSamples;			// number of sample	points on the CDF
+	double []						fastInverseCDF;		// high-resolution table of the inverse CDF, built on first use by nextDoubleFast()
 	static final int				DEFAULT_CDF_SAMPLES = 100;
+	static final int				FAST_TABLE_BITS = 12;	// log2 of the number of intervals of the high-resolution table
+	static final int				FAST_REMAINDER_MASK = (1 << (32 - FAST_TABLE_BITS)) - 1;
+	static final double				FAST_REMAINDER_SCALE = 1.0/(1 << (32 - FAST_TABLE_BITS));
 }
@@ -0,0 +1,21 @@
+package utilities;
+
+import org.apache.commons.math3.random.RandomGenerator;
+
+/**************************************************************************************************
+ * Interface for the random number generators used by the model. On top of the methods of the
+ * commons-math RandomGenerator interface, engines can fill primitive buffers in bulk.
+ *
+ *************************************************************************************************/
+public interface RandomEngine extends RandomGenerator {
+
+    /**
+     * Fill a buffer with uniform random numbers, with exactly the same values as successive calls to nextDouble()
+     *
+     * @param buffer Array to write the random numbers to
+     * @param n Number of random numbers to write, starting at the first position of the buffer
+     */
+    default void nextDoubles(double [] buffer, int n) {
+        for (int i = 0; i < n; i++) buffer[i] = nextDouble();
+    }
+}
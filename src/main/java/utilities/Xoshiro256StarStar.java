@@ -0,0 +1,165 @@
+package utilities;
+
+import org.apache.commons.math3.random.BitsStreamGenerator;
+
+/**************************************************************************************************
+ * xoshiro256** engine of Blackman and Vigna (2018), with 256 bits of state and a period of
+ * 2^256 - 1. It is several times faster than the Mersenne Twister, passes all standard
+ * statistical test suites and can jump ahead by 2^128 draws, so a single seed can provide up to
+ * 2^128 non-overlapping streams. The state is initialised from the seed with the SplitMix64
+ * generator, as recommended by the authors, so that similar seeds give unrelated sequences.
+ *
+ * Uniform doubles are built from the highest 53 bits of a single 64-bit draw, against two 32-bit
+ * draws for the Mersenne Twister, and the remaining methods (nextGaussian, nextInt(n)...) are
+ * inherited from the commons-math BitsStreamGenerator.
+ *
+ *************************************************************************************************/
+public class Xoshiro256StarStar extends BitsStreamGenerator implements RandomEngine {
+    private static final long serialVersionUID = 6092874216591637204L;
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final double DOUBLE_UNIT = 0x1.0p-53; // Scale from 53-bit integers to doubles in [0, 1)
+    private static final long [] JUMP = {0x180ec6d33cfd0abaL, 0xd5a61266f0c9392cL, 0xa9582618e03fc9aaL,
+            0x39abdc4529b1661cL}; // Polynomial to advance the state by 2^128 draws
+
+    private long    s0;
+    private long    s1;
+    private long    s2;
+    private long    s3;
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    public Xoshiro256StarStar(long seed) { setSeed(seed); }
+
+    private Xoshiro256StarStar(Xoshiro256StarStar other) {
+        s0 = other.s0;
+        s1 = other.s1;
+        s2 = other.s2;
+        s3 = other.s3;
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    @Override
+    public void setSeed(int seed) { setSeed((long)seed); }
+
+    @Override
+    public void setSeed(int [] seed) {
+        long combined = 0;
+        for (int value : seed) combined = combined*0x9e3779b97f4a7c15L + value;
+        setSeed(combined);
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        long x = seed;
+        x += 0x9e3779b97f4a7c15L;
+        s0 = splitMix64(x);
+        x += 0x9e3779b97f4a7c15L;
+        s1 = splitMix64(x);
+        x += 0x9e3779b97f4a7c15L;
+        s2 = splitMix64(x);
+        x += 0x9e3779b97f4a7c15L;
+        s3 = splitMix64(x);
+        clear(); // Discard any cached normal variate
+    }
+
+    /**
+     * @param z Current state of the SplitMix64 generator
+     * @return Output of the SplitMix64 generator for that state
+     */
+    private static long splitMix64(long z) {
+        z = (z ^ (z >>> 30))*0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27))*0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public long nextLong() {
+        long result = Long.rotateLeft(s1*5, 7)*9;
+        long t = s1 << 17;
+        s2 ^= s0;
+        s3 ^= s1;
+        s1 ^= s2;
+        s0 ^= s3;
+        s2 ^= t;
+        s3 = Long.rotateLeft(s3, 45);
+        return result;
+    }
+
+    @Override
+    protected int next(int bits) { return (int)(nextLong() >>> (64 - bits)); }
+
+    @Override
+    public int nextInt() { return (int)(nextLong() >>> 32); }
+
+    @Override
+    public double nextDouble() { return (nextLong() >>> 11)*DOUBLE_UNIT; }
+
+    @Override
+    public void nextDoubles(double [] buffer, int n) {
+        long x0 = s0;
+        long x1 = s1;
+        long x2 = s2;
+        long x3 = s3;
+        for (int i = 0; i < n; i++) {
+            long result = Long.rotateLeft(x1*5, 7)*9;
+            long t = x1 << 17;
+            x2 ^= x0;
+            x3 ^= x1;
+            x1 ^= x2;
+            x0 ^= x3;
+            x2 ^= t;
+            x3 = Long.rotateLeft(x3, 45);
+            buffer[i] = (result >>> 11)*DOUBLE_UNIT;
+        }
+        s0 = x0;
+        s1 = x1;
+        s2 = x2;
+        s3 = x3;
+    }
+
+    /**
+     * Advance the state of the engine by 2^128 draws, well beyond the number of draws of any simulation
+     */
+    public void jump() {
+        long t0 = 0;
+        long t1 = 0;
+        long t2 = 0;
+        long t3 = 0;
+        for (long jump : JUMP) {
+            for (int b = 0; b < 64; b++) {
+                if ((jump & (1L << b)) != 0) {
+                    t0 ^= s0;
+                    t1 ^= s1;
+                    t2 ^= s2;
+                    t3 ^= s3;
+                }
+                nextLong();
+            }
+        }
+        s0 = t0;
+        s1 = t1;
+        s2 = t2;
+        s3 = t3;
+        clear();
+    }
+
+    /**
+     * Split the sequence of the engine into two non-overlapping streams
+     *
+     * @return A new engine continuing the sequence from the current state, while this engine jumps ahead
+     */
+    public Xoshiro256StarStar split() {
+        Xoshiro256StarStar stream = new Xoshiro256StarStar(this);
+        jump();
+        return stream;
+    }
+}
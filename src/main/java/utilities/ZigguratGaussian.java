@@ -0,0 +1,98 @@
+package utilities;
+
+import org.apache.commons.math3.random.RandomGenerator;
+
+/**************************************************************************************************
+ * Sampler of standard normal variates based on the ziggurat method of Marsaglia and Tsang (2000),
+ * with 128 layers. Around 99% of the draws cost a single 64-bit random number, a comparison and a
+ * multiplication, against the two uniforms, logarithm and square root per pair of variates of the
+ * polar method used by the generators of commons-math. Only the rare draws falling on the edge of
+ * a layer or on the tail need any further random numbers or transcendental functions.
+ *
+ * The index of the layer and the candidate value are taken from different bits of the same 64-bit
+ * random number, so that they are independent, and all functions are evaluated with StrictMath,
+ * so that draws are bit-for-bit reproducible from the seed of the generator on any platform.
+ *
+ *************************************************************************************************/
+public class ZigguratGaussian {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final int        N_LAYERS = 128;
+    private static final double     R = 3.442619855899; // Start of the tail, i.e., right edge of the base layer
+    private static final double     V = 9.91256303526217e-3; // Area of each layer
+    private static final double     M = 2147483648.0; // 2^31, scale of the signed 32-bit candidate values
+
+    private static final long []    k = new long[N_LAYERS]; // Acceptance thresholds for the candidate values
+    private static final double []  w = new double[N_LAYERS]; // Scale from candidate values to variates
+    private static final double []  f = new double[N_LAYERS]; // Density at the top edge of each layer
+
+    static {
+        double dn = R;
+        double tn = dn;
+        double q = V/StrictMath.exp(-0.5*dn*dn);
+        k[0] = (long)((dn/q)*M);
+        k[1] = 0;
+        w[0] = q/M;
+        w[N_LAYERS - 1] = dn/M;
+        f[0] = 1.0;
+        f[N_LAYERS - 1] = StrictMath.exp(-0.5*dn*dn);
+        for (int i = N_LAYERS - 2; i >= 1; i--) {
+            dn = StrictMath.sqrt(-2.0*StrictMath.log(V/dn + StrictMath.exp(-0.5*dn*dn)));
+            k[i + 1] = (long)((dn/tn)*M);
+            tn = dn;
+            f[i] = StrictMath.exp(-0.5*dn*dn);
+            w[i] = dn/M;
+        }
+    }
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    private ZigguratGaussian() {}
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * @param rand Source of uniform random numbers
+     * @return A standard normal variate, i.e., with zero mean and unit standard deviation
+     */
+    public static double nextGaussian(RandomGenerator rand) {
+        long bits = rand.nextLong();
+        int layer = (int)bits & (N_LAYERS - 1);
+        int candidate = (int)(bits >> 32);
+        if (Math.abs((long)candidate) < k[layer]) return candidate*w[layer];
+        return nextGaussianSlow(rand, layer, candidate);
+    }
+
+    /**
+     * Draws whose candidate value falls outside the rectangle fully contained under the density: either on the tail
+     * beyond R (base layer) or on the wedge at the edge of a layer
+     */
+    private static double nextGaussianSlow(RandomGenerator rand, int layer, int candidate) {
+        while (true) {
+            double x = candidate*w[layer];
+            if (layer == 0) {
+                // Tail, sampled with Marsaglia's method
+                double y;
+                do {
+                    x = -StrictMath.log(1.0 - rand.nextDouble())/R;
+                    y = -StrictMath.log(1.0 - rand.nextDouble());
+                } while (y + y < x*x);
+                return (candidate > 0) ? R + x : -R - x;
+            }
+            // Wedge, accepted if below the density
+            if (f[layer] + rand.nextDouble()*(f[layer - 1] - f[layer]) < StrictMath.exp(-0.5*x*x)) return x;
+            // Rejected, so start again with a new draw
+            long bits = rand.nextLong();
+            layer = (int)bits & (N_LAYERS - 1);
+            candidate = (int)(bits >> 32);
+            if (Math.abs((long)candidate) < k[layer]) return candidate*w[layer];
+        }
+    }
+}